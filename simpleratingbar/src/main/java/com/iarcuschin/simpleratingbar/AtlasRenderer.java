@@ -0,0 +1,213 @@
+package com.iarcuschin.simpleratingbar;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.os.Build;
+import android.util.Log;
+
+/**
+ * Renderer of {@link SimpleRatingBar.RenderMode#Atlas}: with a finite stepSize a bar can only show
+ * numberOfStars / stepSize + 1 different images in each state (only in normal state for indicators, which can't be
+ * pressed), so all of them are drawn once into an atlas
+ * shared by all bars with the same style (see {@link StarAtlasCache}), and each draw blits one of its cells.
+ * Ratings which are not a multiple of stepSize (set programmatically or while animating), animations of colors
+ * or geometry, atlases that don't fit in the cache budget and hardware atlases drawn into software canvases
+ * are drawn by a {@link SoftwareRenderer}.
+ * Renderers only keep the key of their atlas and look it up on each draw, so evicted atlases are actually freed.
+ */
+class AtlasRenderer implements RatingBarRenderer {
+
+  // atlas sides are kept below the maximum texture size of older GPUs
+  private static final int MAX_ATLAS_SIDE = 2048;
+  // relative to stepSize, error accepted when matching a rating with a state of the atlas
+  private static final float STEP_TOLERANCE = 0.001f;
+
+  private final SimpleRatingBar bar;
+  private final SoftwareRenderer fallback;
+  private boolean fallbackPrepared;
+  private final StarAtlasCache.Key atlasKey = new StarAtlasCache.Key();
+  // when dirty the key has to be updated for current style before looking up the atlas
+  private boolean atlasKeyDirty = true;
+  // whether the atlas can't be created for current style, so it's not looked up again until style changes
+  private boolean atlasUnavailable;
+  // number of ratings reachable with current stepSize
+  private int stateCount;
+  // whether the atlas has cells for pressed state after the ones for normal state
+  private boolean pressedState;
+  // area of the view covered by a cell of the atlas: the stars plus room for their border
+  private final Rect cellBounds = new Rect();
+  private final Rect cellSrc = new Rect();
+
+  AtlasRenderer(SimpleRatingBar bar) {
+    this.bar = bar;
+    fallback = new SoftwareRenderer(bar);
+  }
+
+  @Override public void prepare() {
+    RectF starsDrawingSpace = bar.getStarsDrawingSpace();
+    if (starsDrawingSpace != null) {
+      int margin = bar.getBorderMargin();
+      cellBounds.set(
+          (int) Math.floor(starsDrawingSpace.left) - margin,
+          (int) Math.floor(starsDrawingSpace.top) - margin,
+          (int) Math.ceil(starsDrawingSpace.right) + margin,
+          (int) Math.ceil(starsDrawingSpace.bottom) + margin);
+    }
+    invalidateStars();
+    if (fallbackPrepared) {
+      fallback.prepare();
+    }
+  }
+
+  @Override public void invalidateStars() {
+    // the atlas for the new style is looked up on next draw
+    atlasKeyDirty = true;
+    atlasUnavailable = false;
+    fallback.invalidateStars();
+  }
+
+  @Override public void draw(Canvas canvas) {
+    if (bar.getStarsDrawingSpace() == null) {
+      // not laid out yet
+      return;
+    }
+    Bitmap atlas = null;
+    if (!bar.isAnimatingStyle() && !atlasUnavailable) {
+      // while colors or geometry are animated, each frame would need a new atlas
+      atlas = obtainAtlas();
+      atlasUnavailable = atlas == null;
+    }
+
+    int state = atlas != null ? findState(bar.getRating()) : -1;
+    if (state < 0 || (isHardwareBitmap(atlas) && !canvas.isHardwareAccelerated())) {
+      // draw as in Software render mode
+      if (!fallbackPrepared) {
+        fallback.prepare();
+        fallbackPrepared = true;
+      }
+      fallback.draw(canvas);
+      return;
+    }
+    if (fallbackPrepared) {
+      // let other bars use the internal bitmap while the atlas is enough
+      fallback.release();
+      fallbackPrepared = false;
+    }
+
+    int cell = pressedState && bar.isTouchInProgress() ? stateCount + state : state;
+    int cellWidth = cellBounds.width();
+    int cellHeight = cellBounds.height();
+    int columns = atlas.getWidth() / cellWidth;
+    int x = (cell % columns) * cellWidth;
+    int y = (cell / columns) * cellHeight;
+    cellSrc.set(x, y, x + cellWidth, y + cellHeight);
+    canvas.drawBitmap(atlas, cellSrc, cellBounds, null);
+  }
+
+  @Override public void release() {
+    // atlases are owned by the cache
+    atlasUnavailable = false;
+    fallback.release();
+    fallbackPrepared = false;
+  }
+
+  /**
+   * Returns the atlas for the current style, drawing and caching it if needed.
+   * @return the atlas, or null if it doesn't fit in the cache
+   */
+  private Bitmap obtainAtlas() {
+    if (atlasKeyDirty) {
+      // ratings reachable by touch are the multiples of stepSize, plus numberOfStars
+      float stepSize = bar.getStepSize();
+      int numberOfStars = bar.getNumberOfStars();
+      int steps = (int) (numberOfStars / stepSize + STEP_TOLERANCE);
+      stateCount = steps * stepSize < numberOfStars - stepSize * STEP_TOLERANCE ? steps + 2 : steps + 1;
+      pressedState = !bar.isIndicator();
+
+      RectF starsDrawingSpace = bar.getStarsDrawingSpace();
+      atlasKey.set(bar, starsDrawingSpace.left - (float) Math.floor(starsDrawingSpace.left),
+          starsDrawingSpace.top - (float) Math.floor(starsDrawingSpace.top));
+      atlasKeyDirty = false;
+    }
+    Bitmap atlas = StarAtlasCache.get(atlasKey);
+    if (atlas == null) {
+      atlas = drawAtlas();
+      if (atlas != null) {
+        StarAtlasCache.put(atlasKey, atlas);
+      }
+    }
+    return atlas;
+  }
+
+  /**
+   * Draws every reachable rating, first in normal state and then, unless the bar is an indicator, in pressed state,
+   * into a new atlas. Cells are laid out in rows, from left to right.
+   * @return the atlas, or null if it doesn't fit in the cache or in a texture
+   */
+  private Bitmap drawAtlas() {
+    int cellWidth = cellBounds.width();
+    int cellHeight = cellBounds.height();
+    int cellCount = pressedState ? 2 * stateCount : stateCount;
+    int columns = Math.min(cellCount, MAX_ATLAS_SIDE / Math.max(1, cellWidth));
+    if (columns == 0 || cellHeight <= 0) {
+      return null;
+    }
+    int rows = (cellCount + columns - 1) / columns;
+    long byteCount = (long) columns * cellWidth * rows * cellHeight * 4;
+    if (rows * cellHeight > MAX_ATLAS_SIDE || byteCount > StarAtlasCache.getMaxSize()) {
+      // tried again only when the style or the layout change
+      Log.w("SimpleRatingBar", String.format("Atlas of %d ratings (%d x %d px, %d bytes) doesn't fit in a texture of %d px or in StarAtlasCache max size (%d bytes), I will draw using Software render mode. Increase stepSize or StarAtlasCache max size to use Atlas render mode",
+          cellCount, columns * cellWidth, rows * cellHeight, byteCount, MAX_ATLAS_SIDE, StarAtlasCache.getMaxSize()));
+      return null;
+    }
+
+    Bitmap atlas = Bitmap.createBitmap(columns * cellWidth, rows * cellHeight, Bitmap.Config.ARGB_8888);
+    Canvas atlasCanvas = new Canvas(atlas);
+    for (int cell = 0; cell < cellCount; cell++) {
+      float rating = Math.min((cell % stateCount) * bar.getStepSize(), bar.getNumberOfStars());
+      int x = (cell % columns) * cellWidth;
+      int y = (cell / columns) * cellHeight;
+      atlasCanvas.save();
+      atlasCanvas.clipRect(x, y, x + cellWidth, y + cellHeight);
+      atlasCanvas.translate(x - cellBounds.left, y - cellBounds.top);
+      bar.setupColorsInPaint(cell >= stateCount);
+      bar.drawStars(atlasCanvas, bar.calculateFillPosition(rating));
+      atlasCanvas.restore();
+    }
+    // leave paints set up for the current state
+    bar.setupColorsInPaint(bar.isTouchInProgress());
+
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+      // hardware bitmaps are uploaded once and don't take heap memory
+      Bitmap hardwareAtlas = atlas.copy(Bitmap.Config.HARDWARE, false);
+      if (hardwareAtlas != null) {
+        atlas.recycle();
+        atlas = hardwareAtlas;
+      }
+    }
+    return atlas;
+  }
+
+  /**
+   * Returns the index of the state showing the given rating.
+   * @param rating
+   * @return the index, or -1 if the rating is not reachable with stepSize
+   */
+  private int findState(float rating) {
+    if (rating >= bar.getNumberOfStars()) {
+      return stateCount - 1;
+    }
+    float stepSize = bar.getStepSize();
+    int state = Math.round(rating / stepSize);
+    if (Math.abs(state * stepSize - rating) > stepSize * STEP_TOLERANCE || state >= stateCount) {
+      return -1;
+    }
+    return state;
+  }
+
+  private static boolean isHardwareBitmap(Bitmap bitmap) {
+    return Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && bitmap.getConfig() == Bitmap.Config.HARDWARE;
+  }
+}
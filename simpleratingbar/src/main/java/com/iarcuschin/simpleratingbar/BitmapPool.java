@@ -0,0 +1,218 @@
+package com.iarcuschin.simpleratingbar;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Process-wide pool of the internal bitmaps used by SimpleRatingBar instances.
+ * Bars borrow a bitmap when they need one and return it when they resize or get detached,
+ * so scrolling through lists of bars doesn't keep allocating and freeing native memory.
+ * Pooled bitmaps are bucketed by allocation size. Since KitKat, a pooled bitmap can be reconfigured
+ * to any size and config fitting in its allocation, before that only exact matches can be reused.
+ * The pool is bounded by a byte budget, which can be changed using {@link #setMaxSize(int)}.
+ */
+public final class BitmapPool {
+
+  private static final int DEFAULT_MAX_SIZE = 4 * 1024 * 1024;
+  // a pooled bitmap is not handed out for requests much smaller than it, to avoid wasting memory
+  private static final int MAX_SIZE_MULTIPLE = 4;
+
+  private static final TreeMap<Integer, ArrayDeque<Bitmap>> buckets = new TreeMap<>();
+  // pooled bitmaps from least to most recently returned, used for eviction
+  private static final ArrayDeque<Bitmap> recency = new ArrayDeque<>();
+  private static int maxSize = DEFAULT_MAX_SIZE;
+  private static int size;
+  private static int hitCount;
+  private static int missCount;
+  private static int evictionCount;
+
+  private BitmapPool() {
+  }
+
+  /**
+   * Returns an erased, mutable bitmap with the given size and config.
+   * It's reused from the pool if possible, otherwise it's allocated.
+   * @param width
+   * @param height
+   * @param config
+   * @return
+   */
+  static synchronized Bitmap obtain(int width, int height, Bitmap.Config config) {
+    Bitmap bitmap = findReusable(width, height, config);
+    if (bitmap == null) {
+      missCount++;
+      bitmap = Bitmap.createBitmap(width, height, config);
+    } else {
+      hitCount++;
+    }
+    return bitmap;
+  }
+
+  /**
+   * Returns a bitmap to the pool. The caller must not use it anymore.
+   * Bitmaps that don't fit in the pool are recycled.
+   * @param bitmap
+   */
+  static synchronized void release(Bitmap bitmap) {
+    if (bitmap == null || bitmap.isRecycled()) {
+      return;
+    }
+    int bytes = getAllocationSize(bitmap);
+    if (!bitmap.isMutable() || bytes > maxSize) {
+      bitmap.recycle();
+      return;
+    }
+
+    ArrayDeque<Bitmap> bucket = buckets.get(bytes);
+    if (bucket == null) {
+      bucket = new ArrayDeque<>();
+      buckets.put(bytes, bucket);
+    }
+    bucket.addLast(bitmap);
+    recency.addLast(bitmap);
+    size += bytes;
+    trimToSize(maxSize);
+  }
+
+  /**
+   * Sets the maximum amount of bytes the pooled bitmaps can occupy.
+   * Least recently returned bitmaps will be recycled if the new budget is exceeded.
+   * @param maxSize in bytes, must be greater or equal than 0
+   */
+  public static synchronized void setMaxSize(int maxSize) {
+    if (maxSize < 0) {
+      throw new IllegalArgumentException(String.format("BitmapPool initialized with invalid value for maxSize. Found %d, but should be greater or equal than 0", maxSize));
+    }
+    BitmapPool.maxSize = maxSize;
+    trimToSize(maxSize);
+  }
+
+  /**
+   * Returns the maximum amount of bytes the pooled bitmaps can occupy.
+   * @return
+   */
+  public static synchronized int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Returns the amount of bytes occupied by the pooled bitmaps.
+   * @return
+   */
+  public static synchronized int getSize() {
+    return size;
+  }
+
+  /**
+   * Returns the number of requests that were served with a pooled bitmap.
+   * @return
+   */
+  public static synchronized int getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * Returns the number of requests that needed a new bitmap to be allocated.
+   * @return
+   */
+  public static synchronized int getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * Returns the number of pooled bitmaps that were recycled to respect the byte budget.
+   * @return
+   */
+  public static synchronized int getEvictionCount() {
+    return evictionCount;
+  }
+
+  /**
+   * Recycles all pooled bitmaps.
+   */
+  public static synchronized void clear() {
+    trimToSize(0);
+  }
+
+  /**
+   * Removes from the pool a bitmap that can hold the given size and config, and prepares it for use.
+   * @param width
+   * @param height
+   * @param config
+   * @return the bitmap, or null if there is none
+   */
+  private static Bitmap findReusable(int width, int height, Bitmap.Config config) {
+    int needed = width * height * getBytesPerPixel(config);
+    boolean canReconfigure = Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT;
+    for (Map.Entry<Integer, ArrayDeque<Bitmap>> entry : buckets.tailMap(needed).entrySet()) {
+      int bytes = entry.getKey();
+      if (!canReconfigure && bytes != needed) {
+        break;
+      } else if (bytes > needed * MAX_SIZE_MULTIPLE) {
+        break;
+      }
+
+      Iterator<Bitmap> iterator = entry.getValue().iterator();
+      while (iterator.hasNext()) {
+        Bitmap bitmap = iterator.next();
+        if (canReconfigure || (bitmap.getWidth() == width && bitmap.getHeight() == height && bitmap.getConfig() == config)) {
+          iterator.remove();
+          if (entry.getValue().isEmpty()) {
+            buckets.remove(bytes);
+          }
+          recency.remove(bitmap);
+          size -= bytes;
+          if (canReconfigure) {
+            bitmap.reconfigure(width, height, config);
+          }
+          bitmap.eraseColor(0);
+          return bitmap;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Recycles least recently returned bitmaps until the pool occupies no more than the given size.
+   * @param maxSize
+   */
+  static synchronized void trimToSize(int maxSize) {
+    while (size > maxSize && !recency.isEmpty()) {
+      Bitmap bitmap = recency.removeFirst();
+      int bytes = getAllocationSize(bitmap);
+      ArrayDeque<Bitmap> bucket = buckets.get(bytes);
+      bucket.remove(bitmap);
+      if (bucket.isEmpty()) {
+        buckets.remove(bytes);
+      }
+      size -= bytes;
+      evictionCount++;
+      bitmap.recycle();
+    }
+  }
+
+  private static int getAllocationSize(Bitmap bitmap) {
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+      return bitmap.getAllocationByteCount();
+    }
+    return bitmap.getByteCount();
+  }
+
+  static int getBytesPerPixel(Bitmap.Config config) {
+    switch (config) {
+      case ALPHA_8:
+        return 1;
+      case RGB_565:
+      case ARGB_4444:
+        return 2;
+      default:
+        return 4;
+    }
+  }
+}
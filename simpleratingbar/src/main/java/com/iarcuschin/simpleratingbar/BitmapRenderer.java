@@ -0,0 +1,105 @@
+package com.iarcuschin.simpleratingbar;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.os.Build;
+
+/**
+ * Base of the renderers which draw the stars into an internal bitmap, kept between draws.
+ * The bitmap only covers the stars drawing space (plus the border margin), clipped to the view bounds,
+ * so padding and empty space don't cost memory nor fill-rate.
+ * It's only replaced when its size or config changes, and it's borrowed from {@link BitmapPool}.
+ */
+abstract class BitmapRenderer implements RatingBarRenderer {
+
+  protected final SimpleRatingBar bar;
+  // in order to delete some drawing, and keep transparency
+  // http://stackoverflow.com/a/21865858/2271834
+  protected Canvas internalCanvas;
+  protected Bitmap internalBitmap;
+  // area of the view covered by the internal bitmap: the stars plus room for their border
+  protected final Rect internalBitmapBounds = new Rect();
+  // when dirty the internal bitmap has to be redrawn completely
+  protected boolean internalBitmapDirty;
+
+  BitmapRenderer(SimpleRatingBar bar) {
+    this.bar = bar;
+  }
+
+  /**
+   * Returns the config of the internal bitmap.
+   * @return
+   */
+  protected abstract Bitmap.Config getBitmapConfig();
+
+  @Override public void prepare() {
+    // stars geometry might have changed
+    internalBitmapDirty = true;
+
+    RectF starsDrawingSpace = bar.getStarsDrawingSpace();
+    if (starsDrawingSpace == null) {
+      // not laid out yet
+      release();
+      return;
+    }
+
+    int margin = bar.getBorderMargin();
+    internalBitmapBounds.set(
+        (int) Math.floor(starsDrawingSpace.left) - margin,
+        (int) Math.floor(starsDrawingSpace.top) - margin,
+        (int) Math.ceil(starsDrawingSpace.right) + margin,
+        (int) Math.ceil(starsDrawingSpace.bottom) + margin);
+    if (!internalBitmapBounds.intersect(0, 0, bar.getWidth(), bar.getHeight())) {
+      // if the stars are not visible we don't need internal bitmap, cause they won't be drawn anyway.
+      internalBitmapBounds.setEmpty();
+      release();
+      return;
+    }
+
+    int w = internalBitmapBounds.width();
+    int h = internalBitmapBounds.height();
+    Bitmap.Config config = getBitmapConfig();
+    if (internalBitmap != null && internalBitmap.getWidth() == w && internalBitmap.getHeight() == h
+        && internalBitmap.getConfig() == config) {
+      // only the offset changed, current bitmap can be reused
+      return;
+    }
+
+    boolean canReconfigure = Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT;
+    if (canReconfigure && internalBitmap != null
+        && internalBitmap.getAllocationByteCount() >= w * h * BitmapPool.getBytesPerPixel(config)) {
+      // the buffer only grows: if current allocation is big enough, it's reconfigured in place
+      internalBitmap.reconfigure(w, h, config);
+    } else {
+      release();
+      if (canReconfigure && bar.isAnimatingGeometry()) {
+        // leave room to keep growing during the animation without allocating on each frame
+        internalBitmap = BitmapPool.obtain(w + w / 4, h + h / 4, config);
+        internalBitmap.reconfigure(w, h, config);
+      } else {
+        internalBitmap = BitmapPool.obtain(w, h, config);
+      }
+    }
+    if (internalCanvas == null) {
+      internalCanvas = new Canvas();
+    }
+    internalCanvas.setBitmap(internalBitmap);
+  }
+
+  @Override public void invalidateStars() {
+    internalBitmapDirty = true;
+  }
+
+  /**
+   * Releases internal canvas, returning its bitmap to the pool.
+   */
+  @Override public void release() {
+    if (internalBitmap != null) {
+      internalCanvas.setBitmap(null);
+      BitmapPool.release(internalBitmap);
+      internalBitmap = null;
+    }
+  }
+}
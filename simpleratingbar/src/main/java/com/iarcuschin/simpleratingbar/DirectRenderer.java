@@ -0,0 +1,123 @@
+package com.iarcuschin.simpleratingbar;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Picture;
+import android.graphics.RectF;
+import android.support.annotation.ColorInt;
+
+/**
+ * Renderer of {@link SimpleRatingBar.RenderMode#Direct}: stars are drawn straight into the view canvas,
+ * so no bitmap is allocated and hardware acceleration is kept.
+ * The fill, star background and border layers are recorded into pictures when the look of the stars changes,
+ * and each draw replays them clipped to each side of the rating position.
+ * Transparent colors leave the stars transparent, as the CLEAR xfermode does in {@link SoftwareRenderer}.
+ */
+class DirectRenderer implements RatingBarRenderer {
+
+  private final SimpleRatingBar bar;
+  // used to fill the stars without xfermodes
+  private final Paint paintStarClipped;
+  private Picture fillPicture;
+  private Picture starBackgroundPicture;
+  private Picture borderPicture;
+  // when dirty the pictures have to be recorded again
+  private boolean picturesDirty = true;
+  private boolean recordedTouchInProgress;
+
+  DirectRenderer(SimpleRatingBar bar) {
+    this.bar = bar;
+    paintStarClipped = StarShape.createFillPaint();
+  }
+
+  @Override public void prepare() {
+    // stars geometry might have changed
+    picturesDirty = true;
+  }
+
+  @Override public void invalidateStars() {
+    picturesDirty = true;
+  }
+
+  @Override public void draw(Canvas canvas) {
+    RectF starsDrawingSpace = bar.getStarsDrawingSpace();
+    if (starsDrawingSpace == null) {
+      // not laid out yet
+      return;
+    }
+    if (picturesDirty || bar.isTouchInProgress() != recordedTouchInProgress) {
+      recordStarLayers();
+      picturesDirty = false;
+      recordedTouchInProgress = bar.isTouchInProgress();
+    }
+
+    float fillPosition = bar.calculateFillPosition();
+    int margin = bar.getBorderMargin();
+    float left = starsDrawingSpace.left - margin;
+    float right = starsDrawingSpace.right + margin;
+    if (bar.getGravity() == SimpleRatingBar.Gravity.Left) {
+      drawPictureClipped(canvas, fillPicture, bar.getCurrentFillColor(), left, fillPosition);
+      drawPictureClipped(canvas, starBackgroundPicture, bar.getCurrentStarBackgroundColor(), fillPosition, right);
+    } else {
+      drawPictureClipped(canvas, starBackgroundPicture, bar.getCurrentStarBackgroundColor(), left, fillPosition);
+      drawPictureClipped(canvas, fillPicture, bar.getCurrentFillColor(), fillPosition, right);
+    }
+
+    // draw stars border on top
+    if (bar.isDrawBorderEnabled()) {
+      canvas.drawPicture(borderPicture);
+    }
+  }
+
+  @Override public void release() {
+    fillPicture = null;
+    starBackgroundPicture = null;
+    borderPicture = null;
+    picturesDirty = true;
+  }
+
+  /**
+   * Records the fill, background and border of the stars, in view coordinates, for the current colors and geometry.
+   * The recordings are replayed on each draw, so rating changes only need a different clip.
+   */
+  private void recordStarLayers() {
+    if (fillPicture == null) {
+      fillPicture = new Picture();
+      starBackgroundPicture = new Picture();
+      borderPicture = new Picture();
+    }
+
+    int width = bar.getWidth();
+    int height = bar.getHeight();
+    StarShape.fillStars(fillPicture.beginRecording(width, height), bar.getStarsPath(), paintStarClipped,
+        bar.getCurrentFillColor(), 0xFF);
+    fillPicture.endRecording();
+    StarShape.fillStars(starBackgroundPicture.beginRecording(width, height), bar.getStarsPath(), paintStarClipped,
+        bar.getCurrentStarBackgroundColor(), 0xFF);
+    starBackgroundPicture.endRecording();
+    bar.drawStarsBorder(borderPicture.beginRecording(width, height));
+    borderPicture.endRecording();
+  }
+
+  /**
+   * Replays the recording of the stars filled with the given color, only between left and right.
+   * @param canvas
+   * @param picture
+   * @param color
+   * @param left
+   * @param right
+   */
+  private void drawPictureClipped(Canvas canvas, Picture picture, @ColorInt int color, float left, float right) {
+    if (color == Color.TRANSPARENT || right <= left) {
+      return;
+    }
+
+    RectF starsDrawingSpace = bar.getStarsDrawingSpace();
+    int margin = bar.getBorderMargin();
+    canvas.save();
+    canvas.clipRect(left, starsDrawingSpace.top - margin, right, starsDrawingSpace.bottom + margin);
+    canvas.drawPicture(picture);
+    canvas.restore();
+  }
+}
@@ -0,0 +1,83 @@
+package com.iarcuschin.simpleratingbar;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.support.annotation.ColorInt;
+
+/**
+ * Renderer of {@link SimpleRatingBar.RenderMode#Mask}: the shape of the stars is rasterized once into
+ * an ALPHA_8 internal bitmap (one byte per pixel), and colors are applied when the mask is drawn.
+ * The mask is tinted with the fill color on one side of the rating position and with the star background
+ * color on the other, and then the border is drawn on top, which gives the same result as
+ * {@link SoftwareRenderer} with the SRC_ATOP and CLEAR xfermodes.
+ */
+class MaskRenderer extends BitmapRenderer {
+
+  private final Paint paintMask = new Paint(Paint.DITHER_FLAG);
+
+  MaskRenderer(SimpleRatingBar bar) {
+    super(bar);
+  }
+
+  @Override protected Bitmap.Config getBitmapConfig() {
+    return Bitmap.Config.ALPHA_8;
+  }
+
+  @Override public void draw(Canvas canvas) {
+    if (internalBitmap == null) {
+      // stars are outside the view bounds
+      return;
+    }
+
+    if (internalBitmapDirty) {
+      internalCanvas.drawColor(0, PorterDuff.Mode.CLEAR);
+      internalCanvas.save();
+      internalCanvas.translate(-internalBitmapBounds.left, -internalBitmapBounds.top);
+      bar.drawStarsOutline(internalCanvas);
+      internalCanvas.restore();
+      internalBitmapDirty = false;
+    }
+
+    int fill = bar.getCurrentFillColor();
+    int starBackground = bar.getCurrentStarBackgroundColor();
+    float fillPosition = bar.calculateFillPosition();
+    if (bar.getGravity() == SimpleRatingBar.Gravity.Left) {
+      drawMaskTinted(canvas, fill, internalBitmapBounds.left, fillPosition);
+      drawMaskTinted(canvas, starBackground, fillPosition, internalBitmapBounds.right);
+    } else {
+      drawMaskTinted(canvas, starBackground, internalBitmapBounds.left, fillPosition);
+      drawMaskTinted(canvas, fill, fillPosition, internalBitmapBounds.right);
+    }
+
+    // draw star border on top
+    bar.drawStarsBorder(canvas);
+  }
+
+  /**
+   * Draws the horizontal slice of the alpha mask between left and right, tinted with the given color.
+   * @param canvas
+   * @param color
+   * @param left
+   * @param right
+   */
+  private void drawMaskTinted(Canvas canvas, @ColorInt int color, float left, float right) {
+    if (color == Color.TRANSPARENT || right <= left) {
+      // equivalent to the CLEAR xfermode: nothing is left in the stars
+      return;
+    }
+
+    canvas.save();
+    canvas.clipRect(left, internalBitmapBounds.top, right, internalBitmapBounds.bottom);
+    if (Color.alpha(color) != 0xFF) {
+      // SRC_ATOP keeps the black of the outline below translucent colors
+      paintMask.setColor(Color.BLACK);
+      canvas.drawBitmap(internalBitmap, internalBitmapBounds.left, internalBitmapBounds.top, paintMask);
+    }
+    paintMask.setColor(color);
+    canvas.drawBitmap(internalBitmap, internalBitmapBounds.left, internalBitmapBounds.top, paintMask);
+    canvas.restore();
+  }
+}
@@ -0,0 +1,165 @@
+package com.iarcuschin.simpleratingbar;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.util.AttributeSet;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.WeakHashMap;
+
+/**
+ * Process-wide cache of the attributes read by SimpleRatingBar constructors, per theme.
+ * Bars inflated with the same style, default style and srb_ attributes resolve them once,
+ * so inflating lots of identically styled rows doesn't repeat the full attribute lookup for each of them.
+ * Attributes written in the layout are part of the key, as the text they were written with.
+ */
+final class RatingBarAttrsCache {
+
+  // themes live as long as their activity, so their entries go away along with it
+  private static final WeakHashMap<Resources.Theme, HashMap<Key, Attrs>> cache = new WeakHashMap<>();
+
+  private RatingBarAttrsCache() {
+  }
+
+  /**
+   * Returns the attributes of a bar, resolving them if they are not cached for the theme of the context yet.
+   * @param context context of the bar, whose theme and configuration the attributes are resolved with
+   * @param attrs attributes of the bar in the layout, or null
+   * @param defStyleAttr theme attribute holding the default style, or 0
+   * @param defStyleRes default style used if defStyleAttr is 0 or not set in the theme, or 0
+   * @return the attributes, shared with every bar resolving the same ones
+   */
+  static Attrs obtain(Context context, AttributeSet attrs, int defStyleAttr, int defStyleRes) {
+    Resources.Theme theme = context.getTheme();
+    // resources of the theme are updated in place on configuration changes handled by the activity
+    Key key = new Key(attrs, defStyleAttr, defStyleRes, context.getResources().getConfiguration());
+    synchronized (cache) {
+      HashMap<Key, Attrs> themeAttrs = cache.get(theme);
+      Attrs cached = themeAttrs != null ? themeAttrs.get(key) : null;
+      if (cached != null) {
+        return cached;
+      }
+    }
+
+    // the configuration is updated in place, so cached keys keep a copy of it
+    key.configuration = new Configuration(key.configuration);
+    Attrs parsed = parse(context, attrs, defStyleAttr, defStyleRes);
+    synchronized (cache) {
+      HashMap<Key, Attrs> themeAttrs = cache.get(theme);
+      if (themeAttrs == null) {
+        themeAttrs = new HashMap<>();
+        cache.put(theme, themeAttrs);
+      }
+      themeAttrs.put(key, parsed);
+    }
+    return parsed;
+  }
+
+  private static Attrs parse(Context context, AttributeSet attrs, int defStyleAttr, int defStyleRes) {
+    TypedArray arr = context.obtainStyledAttributes(attrs, R.styleable.SimpleRatingBar, defStyleAttr, defStyleRes);
+    RatingBarStyle style = new RatingBarStyle.Builder(context).readAttributes(arr).build();
+    float rating = arr.getFloat(R.styleable.SimpleRatingBar_srb_rating, 0f);
+    boolean fixedLayout = arr.getBoolean(R.styleable.SimpleRatingBar_srb_fixedLayout, false);
+    arr.recycle();
+    return new Attrs(style, rating, fixedLayout);
+  }
+
+  /**
+   * Evicts all cached attributes.
+   */
+  static void clear() {
+    synchronized (cache) {
+      cache.clear();
+    }
+  }
+
+  /**
+   * Values of the attributes of a bar. Rating is not normalized yet.
+   */
+  static final class Attrs {
+    final RatingBarStyle style;
+    final float rating;
+    final boolean fixedLayout;
+
+    private Attrs(RatingBarStyle style, float rating, boolean fixedLayout) {
+      this.style = style;
+      this.rating = rating;
+      this.fixedLayout = fixedLayout;
+    }
+  }
+
+  /**
+   * Identifies the attributes of a bar by everything, besides the theme, they are resolved from.
+   */
+  private static final class Key {
+    private final int styleAttribute;
+    private final int defStyleAttr;
+    private final int defStyleRes;
+    private Configuration configuration;
+    // srb_ attributes written in the layout
+    private final int[] names;
+    private final String[] values;
+
+    Key(AttributeSet attrs, int defStyleAttr, int defStyleRes, Configuration configuration) {
+      this.defStyleAttr = defStyleAttr;
+      this.defStyleRes = defStyleRes;
+      this.configuration = configuration;
+      if (attrs == null) {
+        styleAttribute = 0;
+        names = new int[0];
+        values = new String[0];
+        return;
+      }
+
+      styleAttribute = attrs.getStyleAttribute();
+      int count = 0;
+      for (int i = 0; i < attrs.getAttributeCount(); i++) {
+        if (isRatingBarAttribute(attrs.getAttributeNameResource(i))) {
+          count++;
+        }
+      }
+      names = new int[count];
+      values = new String[count];
+      int index = 0;
+      for (int i = 0; i < attrs.getAttributeCount(); i++) {
+        if (isRatingBarAttribute(attrs.getAttributeNameResource(i))) {
+          names[index] = attrs.getAttributeNameResource(i);
+          values[index] = attrs.getAttributeValue(i);
+          index++;
+        }
+      }
+    }
+
+    private static boolean isRatingBarAttribute(int name) {
+      for (int attr : R.styleable.SimpleRatingBar) {
+        if (attr == name) return true;
+      }
+      return false;
+    }
+
+    @Override public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Key)) return false;
+      Key key = (Key) o;
+      return styleAttribute == key.styleAttribute
+          && defStyleAttr == key.defStyleAttr
+          && defStyleRes == key.defStyleRes
+          && configuration.equals(key.configuration)
+          && Arrays.equals(names, key.names)
+          && Arrays.equals(values, key.values);
+    }
+
+    @Override public int hashCode() {
+      int result = styleAttribute;
+      result = 31 * result + defStyleAttr;
+      result = 31 * result + defStyleRes;
+      result = 31 * result + configuration.hashCode();
+      result = 31 * result + Arrays.hashCode(names);
+      result = 31 * result + Arrays.hashCode(values);
+      return result;
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package com.iarcuschin.simpleratingbar;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+
+/**
+ * Releases the memory held by the process-wide caches and pools of the library when the system asks to trim memory:
+ * {@link BitmapPool}, {@link StarGlyphCache}, {@link StarAtlasCache} and the cache of parsed attributes.
+ * Register it once, usually from Application.onCreate, with {@link #register(Context)},
+ * or forward the trim levels received by the app to {@link #trimMemory(int)}.
+ * Bitmaps in use by attached bars are not affected, bars give them back to the pool when detached.
+ */
+public final class RatingBarMemoryTrimmer {
+
+  private static final ComponentCallbacks2 callbacks = new ComponentCallbacks2() {
+    @Override public void onTrimMemory(int level) {
+      trimMemory(level);
+    }
+
+    @Override public void onLowMemory() {
+      trimMemory(TRIM_MEMORY_COMPLETE);
+    }
+
+    @Override public void onConfigurationChanged(Configuration newConfig) {
+    }
+  };
+  private static boolean registered;
+
+  private RatingBarMemoryTrimmer() {
+  }
+
+  /**
+   * Starts trimming memory on the trim levels received by the application. Calling it again has no effect.
+   * @param context
+   */
+  public static synchronized void register(Context context) {
+    if (!registered) {
+      context.getApplicationContext().registerComponentCallbacks(callbacks);
+      registered = true;
+    }
+  }
+
+  /**
+   * Stops trimming memory on the trim levels received by the application.
+   * @param context
+   */
+  public static synchronized void unregister(Context context) {
+    if (registered) {
+      context.getApplicationContext().unregisterComponentCallbacks(callbacks);
+      registered = false;
+    }
+  }
+
+  /**
+   * Releases memory according to the given trim level, as passed to ComponentCallbacks2.onTrimMemory.
+   * While the app is running, idle pooled bitmaps are dropped first, and caches are halved once memory gets low.
+   * Once the UI is hidden, or memory is critically low, everything is dropped, since it can be rebuilt when needed.
+   * @param level
+   */
+  public static void trimMemory(int level) {
+    if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+      BitmapPool.clear();
+      StarGlyphCache.clear();
+      StarAtlasCache.clear();
+      RatingBarAttrsCache.clear();
+    } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+      BitmapPool.clear();
+      StarGlyphCache.trimToSize(StarGlyphCache.getMaxSize() / 2);
+      StarAtlasCache.trimToSize(StarAtlasCache.getMaxSize() / 2);
+    } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+      BitmapPool.trimToSize(BitmapPool.getMaxSize() / 2);
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package com.iarcuschin.simpleratingbar;
+
+import android.graphics.Canvas;
+
+/**
+ * Technique used by a SimpleRatingBar to draw its stars, chosen with {@link SimpleRatingBar.RenderMode}.
+ * Each bar owns its renderer, which keeps whatever it needs between draws (bitmaps, recordings, etc).
+ * Geometry, colors and rating are always read from the bar, so the renderer only decides how stars get to the canvas.
+ */
+interface RatingBarRenderer {
+
+  /**
+   * Notification that the stars geometry changed: the bar was laid out or attached, or the border width changed.
+   * Buffers depending on the stars size should be (re)allocated here rather than while drawing.
+   */
+  void prepare();
+
+  /**
+   * Notification that the look of the stars changed for a reason other than rating (colors, gravity, corners, etc),
+   * so anything kept between draws has to be redrawn.
+   */
+  void invalidateStars();
+
+  /**
+   * Draws the stars into the provided canvas. The view background is already drawn and the paints of the bar
+   * have their colors set up for the current state.
+   * @param canvas
+   */
+  void draw(Canvas canvas);
+
+  /**
+   * Releases the resources held by the renderer. It can be prepared again later.
+   */
+  void release();
+}
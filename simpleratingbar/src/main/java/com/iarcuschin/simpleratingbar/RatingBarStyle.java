@@ -0,0 +1,543 @@
+package com.iarcuschin.simpleratingbar;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.Color;
+import android.support.annotation.ColorInt;
+import android.support.annotation.StyleRes;
+import android.util.DisplayMetrics;
+import android.util.Log;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+import static android.util.TypedValue.COMPLEX_UNIT_DIP;
+import static android.util.TypedValue.applyDimension;
+
+/**
+ * Immutable look of a SimpleRatingBar: every configurable value except the rating.
+ * Styles are interned, so all bars, drawables and spans that look the same share a single instance.
+ * Applying a style to a bar is just a reference swap.
+ * Instances hold immutable values only, so they can be shared across threads: drawing objects belong to each bar.
+ * Styles are created with a {@link Builder}, and modified copies with {@link #buildUpon()}.
+ */
+public final class RatingBarStyle {
+
+  // canonical instance of each style, kept while something references it
+  private static final WeakHashMap<RatingBarStyle, WeakReference<RatingBarStyle>> interned = new WeakHashMap<>();
+
+  private final @ColorInt int borderColor;
+  private final @ColorInt int fillColor;
+  private final @ColorInt int backgroundColor;
+  private final @ColorInt int starBackgroundColor;
+  private final @ColorInt int pressedBorderColor;
+  private final @ColorInt int pressedFillColor;
+  private final @ColorInt int pressedBackgroundColor;
+  private final @ColorInt int pressedStarBackgroundColor;
+  private final int numberOfStars;
+  private final float starsSeparation;
+  private final float starSize;
+  private final float maxStarSize;
+  private final float stepSize;
+  private final boolean isIndicator;
+  private final SimpleRatingBar.Gravity gravity;
+  private final float starBorderWidth;
+  private final float starCornerRadius;
+  private final boolean drawBorderEnabled;
+  private final SimpleRatingBar.RenderMode renderMode;
+
+  private RatingBarStyle(Builder builder) {
+    borderColor = builder.borderColor;
+    fillColor = builder.fillColor;
+    backgroundColor = builder.backgroundColor;
+    starBackgroundColor = builder.starBackgroundColor;
+    pressedBorderColor = builder.pressedBorderColor;
+    pressedFillColor = builder.pressedFillColor;
+    pressedBackgroundColor = builder.pressedBackgroundColor;
+    pressedStarBackgroundColor = builder.pressedStarBackgroundColor;
+    numberOfStars = builder.numberOfStars;
+    starsSeparation = builder.starsSeparation;
+    starSize = builder.starSize;
+    maxStarSize = builder.maxStarSize;
+    stepSize = builder.stepSize;
+    isIndicator = builder.isIndicator;
+    gravity = builder.gravity;
+    starBorderWidth = builder.starBorderWidth;
+    starCornerRadius = builder.starCornerRadius;
+    drawBorderEnabled = builder.drawBorderEnabled;
+    renderMode = builder.renderMode;
+  }
+
+  /**
+   * Returns the style defined by the srb_ attributes of the given style resource.
+   * Missing attributes take the default values of SimpleRatingBar.
+   * @param context
+   * @param styleRes
+   * @return
+   */
+  public static RatingBarStyle fromStyle(Context context, @StyleRes int styleRes) {
+    TypedArray arr = context.obtainStyledAttributes(styleRes, R.styleable.SimpleRatingBar);
+    RatingBarStyle style = new Builder(context).readAttributes(arr).build();
+    arr.recycle();
+    return style;
+  }
+
+  /**
+   * Returns a builder initialized with the values of this style.
+   * @return
+   */
+  public Builder buildUpon() {
+    return new Builder(this);
+  }
+
+  /**
+   * Returns the canonical instance equal to the given style.
+   * @param style
+   * @return
+   */
+  private static RatingBarStyle intern(RatingBarStyle style) {
+    synchronized (interned) {
+      WeakReference<RatingBarStyle> reference = interned.get(style);
+      RatingBarStyle canonical = reference != null ? reference.get() : null;
+      if (canonical == null) {
+        canonical = style;
+        interned.put(style, new WeakReference<>(style));
+      }
+      return canonical;
+    }
+  }
+
+  /**
+   * Returns whether both styles lay out stars at the same positions.
+   * @param other
+   * @return
+   */
+  boolean hasSameLayout(RatingBarStyle other) {
+    return numberOfStars == other.numberOfStars
+        && Float.compare(starsSeparation, other.starsSeparation) == 0
+        && Float.compare(starSize, other.starSize) == 0
+        && Float.compare(maxStarSize, other.maxStarSize) == 0;
+  }
+
+  /**
+   * Returns whether both styles draw stars with the same outline and border.
+   * @param other
+   * @return
+   */
+  boolean hasSameStarShape(RatingBarStyle other) {
+    return Float.compare(starBorderWidth, other.starBorderWidth) == 0
+        && Float.compare(starCornerRadius, other.starCornerRadius) == 0;
+  }
+
+  /* ----------- GETTERS ----------- */
+
+  public @ColorInt int getBorderColor() {
+    return borderColor;
+  }
+
+  public @ColorInt int getFillColor() {
+    return fillColor;
+  }
+
+  public @ColorInt int getBackgroundColor() {
+    return backgroundColor;
+  }
+
+  public @ColorInt int getStarBackgroundColor() {
+    return starBackgroundColor;
+  }
+
+  public @ColorInt int getPressedBorderColor() {
+    return pressedBorderColor;
+  }
+
+  public @ColorInt int getPressedFillColor() {
+    return pressedFillColor;
+  }
+
+  public @ColorInt int getPressedBackgroundColor() {
+    return pressedBackgroundColor;
+  }
+
+  public @ColorInt int getPressedStarBackgroundColor() {
+    return pressedStarBackgroundColor;
+  }
+
+  public int getNumberOfStars() {
+    return numberOfStars;
+  }
+
+  /**
+   * Returns separation between stars in pixels.
+   * @return
+   */
+  public float getStarsSeparation() {
+    return starsSeparation;
+  }
+
+  /**
+   * Returns exact star size in pixels, or Integer.MAX_VALUE if stars take the largest size that fits.
+   * @return
+   */
+  public float getStarSize() {
+    return starSize;
+  }
+
+  /**
+   * Returns max star size in pixels, or Integer.MAX_VALUE if there is no max.
+   * @return
+   */
+  public float getMaxStarSize() {
+    return maxStarSize;
+  }
+
+  public float getStepSize() {
+    return stepSize;
+  }
+
+  public boolean isIndicator() {
+    return isIndicator;
+  }
+
+  public SimpleRatingBar.Gravity getGravity() {
+    return gravity;
+  }
+
+  /**
+   * Returns star border width in pixels.
+   * @return
+   */
+  public float getStarBorderWidth() {
+    return starBorderWidth;
+  }
+
+  /**
+   * Returns star corner radius in pixels.
+   * @return
+   */
+  public float getStarCornerRadius() {
+    return starCornerRadius;
+  }
+
+  public boolean isDrawBorderEnabled() {
+    return drawBorderEnabled;
+  }
+
+  public SimpleRatingBar.RenderMode getRenderMode() {
+    return renderMode;
+  }
+
+  @Override public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof RatingBarStyle)) return false;
+    RatingBarStyle style = (RatingBarStyle) o;
+    return borderColor == style.borderColor
+        && fillColor == style.fillColor
+        && backgroundColor == style.backgroundColor
+        && starBackgroundColor == style.starBackgroundColor
+        && pressedBorderColor == style.pressedBorderColor
+        && pressedFillColor == style.pressedFillColor
+        && pressedBackgroundColor == style.pressedBackgroundColor
+        && pressedStarBackgroundColor == style.pressedStarBackgroundColor
+        && hasSameLayout(style)
+        && Float.compare(stepSize, style.stepSize) == 0
+        && isIndicator == style.isIndicator
+        && gravity == style.gravity
+        && hasSameStarShape(style)
+        && drawBorderEnabled == style.drawBorderEnabled
+        && renderMode == style.renderMode;
+  }
+
+  @Override public int hashCode() {
+    int result = borderColor;
+    result = 31 * result + fillColor;
+    result = 31 * result + backgroundColor;
+    result = 31 * result + starBackgroundColor;
+    result = 31 * result + pressedBorderColor;
+    result = 31 * result + pressedFillColor;
+    result = 31 * result + pressedBackgroundColor;
+    result = 31 * result + pressedStarBackgroundColor;
+    result = 31 * result + numberOfStars;
+    result = 31 * result + Float.floatToIntBits(starsSeparation);
+    result = 31 * result + Float.floatToIntBits(starSize);
+    result = 31 * result + Float.floatToIntBits(maxStarSize);
+    result = 31 * result + Float.floatToIntBits(stepSize);
+    result = 31 * result + (isIndicator ? 1 : 0);
+    result = 31 * result + gravity.ordinal();
+    result = 31 * result + Float.floatToIntBits(starBorderWidth);
+    result = 31 * result + Float.floatToIntBits(starCornerRadius);
+    result = 31 * result + (drawBorderEnabled ? 1 : 0);
+    result = 31 * result + renderMode.ordinal();
+    return result;
+  }
+
+  /**
+   * Helper class to build styles. Provides the same defaults as SimpleRatingBar.
+   */
+  public static class Builder {
+    // same as R.color.srb_golden_stars, for builders without access to the resources of the app
+    private static final int DEFAULT_BORDER_COLOR = 0xFFFFC619;
+
+    private @ColorInt int borderColor;
+    private @ColorInt int fillColor;
+    private @ColorInt int backgroundColor;
+    private @ColorInt int starBackgroundColor;
+    private @ColorInt int pressedBorderColor;
+    private @ColorInt int pressedFillColor;
+    private @ColorInt int pressedBackgroundColor;
+    private @ColorInt int pressedStarBackgroundColor;
+    private int numberOfStars;
+    private float starsSeparation;
+    private float starSize;
+    private float maxStarSize;
+    private float stepSize;
+    private boolean isIndicator;
+    private SimpleRatingBar.Gravity gravity;
+    private float starBorderWidth;
+    private float starCornerRadius;
+    private boolean drawBorderEnabled;
+    private SimpleRatingBar.RenderMode renderMode;
+
+    public Builder(Context context) {
+      this(context.getResources().getColor(R.color.srb_golden_stars), context.getResources().getDisplayMetrics());
+    }
+
+    /**
+     * Creates a builder with default values, for the given display, when there is no context.
+     * @param resources
+     */
+    Builder(Resources resources) {
+      this(DEFAULT_BORDER_COLOR, resources.getDisplayMetrics());
+    }
+
+    /**
+     * Creates a builder with default values, using the given default border color and display.
+     * @param defaultBorderColor
+     * @param displayMetrics
+     */
+    Builder(@ColorInt int defaultBorderColor, DisplayMetrics displayMetrics) {
+      borderColor = defaultBorderColor;
+      fillColor = borderColor;
+      starBackgroundColor = Color.TRANSPARENT;
+      backgroundColor = Color.TRANSPARENT;
+      pressedBorderColor = borderColor;
+      pressedFillColor = fillColor;
+      pressedStarBackgroundColor = starBackgroundColor;
+      pressedBackgroundColor = backgroundColor;
+      numberOfStars = 5;
+      starsSeparation = (int) applyDimension(COMPLEX_UNIT_DIP, 4, displayMetrics);
+      maxStarSize = Integer.MAX_VALUE;
+      starSize = Integer.MAX_VALUE;
+      stepSize = 0.1f;
+      starBorderWidth = 5f;
+      starCornerRadius = 6f;
+      isIndicator = false;
+      drawBorderEnabled = true;
+      gravity = SimpleRatingBar.Gravity.Left;
+      renderMode = SimpleRatingBar.RenderMode.Software;
+    }
+
+    private Builder(RatingBarStyle style) {
+      borderColor = style.borderColor;
+      fillColor = style.fillColor;
+      backgroundColor = style.backgroundColor;
+      starBackgroundColor = style.starBackgroundColor;
+      pressedBorderColor = style.pressedBorderColor;
+      pressedFillColor = style.pressedFillColor;
+      pressedBackgroundColor = style.pressedBackgroundColor;
+      pressedStarBackgroundColor = style.pressedStarBackgroundColor;
+      numberOfStars = style.numberOfStars;
+      starsSeparation = style.starsSeparation;
+      starSize = style.starSize;
+      maxStarSize = style.maxStarSize;
+      stepSize = style.stepSize;
+      isIndicator = style.isIndicator;
+      gravity = style.gravity;
+      starBorderWidth = style.starBorderWidth;
+      starCornerRadius = style.starCornerRadius;
+      drawBorderEnabled = style.drawBorderEnabled;
+      renderMode = style.renderMode;
+    }
+
+    /**
+     * Overrides values with the srb_ attributes present in the given array.
+     * As in XML, missing pressed colors take the normal ones, and a missing fill color takes the border one.
+     * @param arr
+     * @return
+     */
+    Builder readAttributes(TypedArray arr) {
+      borderColor = arr.getColor(R.styleable.SimpleRatingBar_srb_borderColor, borderColor);
+      fillColor = arr.getColor(R.styleable.SimpleRatingBar_srb_fillColor, borderColor);
+      starBackgroundColor = arr.getColor(R.styleable.SimpleRatingBar_srb_starBackgroundColor, starBackgroundColor);
+      backgroundColor = arr.getColor(R.styleable.SimpleRatingBar_srb_backgroundColor, backgroundColor);
+
+      pressedBorderColor = arr.getColor(R.styleable.SimpleRatingBar_srb_pressedBorderColor, borderColor);
+      pressedFillColor = arr.getColor(R.styleable.SimpleRatingBar_srb_pressedFillColor, fillColor);
+      pressedStarBackgroundColor = arr.getColor(R.styleable.SimpleRatingBar_srb_pressedStarBackgroundColor, starBackgroundColor);
+      pressedBackgroundColor = arr.getColor(R.styleable.SimpleRatingBar_srb_pressedBackgroundColor, backgroundColor);
+
+      numberOfStars = arr.getInteger(R.styleable.SimpleRatingBar_srb_numberOfStars, numberOfStars);
+
+      starsSeparation = arr.getDimensionPixelSize(R.styleable.SimpleRatingBar_srb_starsSeparation, (int) starsSeparation);
+      maxStarSize = arr.getDimensionPixelSize(R.styleable.SimpleRatingBar_srb_maxStarSize, (int) maxStarSize);
+      starSize = arr.getDimensionPixelSize(R.styleable.SimpleRatingBar_srb_starSize, (int) starSize);
+      stepSize = arr.getFloat(R.styleable.SimpleRatingBar_srb_stepSize, stepSize);
+      starBorderWidth = arr.getFloat(R.styleable.SimpleRatingBar_srb_starBorderWidth, starBorderWidth);
+      starCornerRadius = arr.getFloat(R.styleable.SimpleRatingBar_srb_starCornerRadius, starCornerRadius);
+
+      isIndicator = arr.getBoolean(R.styleable.SimpleRatingBar_srb_isIndicator, isIndicator);
+      drawBorderEnabled = arr.getBoolean(R.styleable.SimpleRatingBar_srb_drawBorderEnabled, drawBorderEnabled);
+      gravity = SimpleRatingBar.Gravity.fromId(arr.getInt(R.styleable.SimpleRatingBar_srb_gravity, gravity.id));
+      renderMode = SimpleRatingBar.RenderMode.fromId(arr.getInt(R.styleable.SimpleRatingBar_srb_renderMode, renderMode.id));
+      return this;
+    }
+
+    public Builder setBorderColor(@ColorInt int borderColor) {
+      this.borderColor = borderColor;
+      return this;
+    }
+
+    public Builder setFillColor(@ColorInt int fillColor) {
+      this.fillColor = fillColor;
+      return this;
+    }
+
+    public Builder setBackgroundColor(@ColorInt int backgroundColor) {
+      this.backgroundColor = backgroundColor;
+      return this;
+    }
+
+    public Builder setStarBackgroundColor(@ColorInt int starBackgroundColor) {
+      this.starBackgroundColor = starBackgroundColor;
+      return this;
+    }
+
+    public Builder setPressedBorderColor(@ColorInt int pressedBorderColor) {
+      this.pressedBorderColor = pressedBorderColor;
+      return this;
+    }
+
+    public Builder setPressedFillColor(@ColorInt int pressedFillColor) {
+      this.pressedFillColor = pressedFillColor;
+      return this;
+    }
+
+    public Builder setPressedBackgroundColor(@ColorInt int pressedBackgroundColor) {
+      this.pressedBackgroundColor = pressedBackgroundColor;
+      return this;
+    }
+
+    public Builder setPressedStarBackgroundColor(@ColorInt int pressedStarBackgroundColor) {
+      this.pressedStarBackgroundColor = pressedStarBackgroundColor;
+      return this;
+    }
+
+    public Builder setNumberOfStars(int numberOfStars) {
+      this.numberOfStars = numberOfStars;
+      return this;
+    }
+
+    /**
+     * Sets separation between stars in pixels.
+     * @param starsSeparation
+     * @return
+     */
+    public Builder setStarsSeparation(float starsSeparation) {
+      this.starsSeparation = starsSeparation;
+      return this;
+    }
+
+    /**
+     * Sets exact star size in pixels. Integer.MAX_VALUE makes stars take the largest size that fits.
+     * @param starSize
+     * @return
+     */
+    public Builder setStarSize(float starSize) {
+      this.starSize = starSize;
+      return this;
+    }
+
+    /**
+     * Sets maximum star size in pixels. Integer.MAX_VALUE removes the limit.
+     * @param maxStarSize
+     * @return
+     */
+    public Builder setMaxStarSize(float maxStarSize) {
+      this.maxStarSize = maxStarSize;
+      return this;
+    }
+
+    public Builder setStepSize(float stepSize) {
+      this.stepSize = stepSize;
+      return this;
+    }
+
+    public Builder setIndicator(boolean indicator) {
+      this.isIndicator = indicator;
+      return this;
+    }
+
+    public Builder setGravity(SimpleRatingBar.Gravity gravity) {
+      this.gravity = gravity;
+      return this;
+    }
+
+    /**
+     * Sets border width of stars in pixels.
+     * @param starBorderWidth
+     * @return
+     */
+    public Builder setStarBorderWidth(float starBorderWidth) {
+      this.starBorderWidth = starBorderWidth;
+      return this;
+    }
+
+    /**
+     * Sets radius of star corner in pixels.
+     * @param starCornerRadius
+     * @return
+     */
+    public Builder setStarCornerRadius(float starCornerRadius) {
+      this.starCornerRadius = starCornerRadius;
+      return this;
+    }
+
+    public Builder setDrawBorderEnabled(boolean drawBorderEnabled) {
+      this.drawBorderEnabled = drawBorderEnabled;
+      return this;
+    }
+
+    public Builder setRenderMode(SimpleRatingBar.RenderMode renderMode) {
+      this.renderMode = renderMode;
+      return this;
+    }
+
+    /**
+     * Validates values and returns the canonical style with them.
+     * It will throw IllegalArgumentException if severe inconsistency is found.
+     * Warnings will be logged to LogCat.
+     * @return
+     */
+    public RatingBarStyle build() {
+      if (numberOfStars <= 0) {
+        throw new IllegalArgumentException(String.format("SimpleRatingBar initialized with invalid value for numberOfStars. Found %d, but should be greater than 0", numberOfStars));
+      }
+      if (starSize != Integer.MAX_VALUE && maxStarSize != Integer.MAX_VALUE && starSize > maxStarSize) {
+        Log.w("SimpleRatingBar", String.format("Initialized with conflicting values: starSize is greater than maxStarSize (%f > %f). I will ignore maxStarSize", starSize, maxStarSize));
+      }
+      if (stepSize <= 0) {
+        throw new IllegalArgumentException(String.format("SimpleRatingBar initialized with invalid value for stepSize. Found %f, but should be greater than 0", stepSize));
+      }
+      if (starBorderWidth <= 0) {
+        throw new IllegalArgumentException(String.format("SimpleRatingBar initialized with invalid value for starBorderWidth. Found %f, but should be greater than 0",
+            starBorderWidth));
+      }
+      if (starCornerRadius < 0) {
+        throw new IllegalArgumentException(String.format("SimpleRatingBar initialized with invalid value for starCornerRadius. Found %f, but should be greater or equal than 0",
+            starCornerRadius));
+      }
+      return intern(new RatingBarStyle(this));
+    }
+  }
+}
@@ -0,0 +1,238 @@
+package com.iarcuschin.simpleratingbar;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.support.annotation.StyleRes;
+import android.text.style.ReplacementSpan;
+import android.util.Log;
+
+import static android.util.TypedValue.COMPLEX_UNIT_DIP;
+import static android.util.TypedValue.applyDimension;
+
+/**
+ * Draws the stars of a read-only SimpleRatingBar inline, replacing the spanned text of a TextView.
+ * Stars are as tall as the text of the span, from its ascent to its descent, so they fit in the line.
+ * Separation, border width and corner radius of the style are scaled along with the star size, so the stars
+ * look like the ones of a SimpleRatingBar with the same style.
+ * Stars are blitted from glyphs in {@link StarGlyphCache}, so all spans with the same style and text size
+ * share two bitmaps, and a span only holds its rating, a reference to its {@link RatingBarStyle} and its drawing state.
+ * Spans are immutable: to show a different rating, replace the span.
+ * Text can be measured off the UI thread (e.g. with PrecomputedText), so spans don't share any mutable state.
+ */
+public class RatingSpan extends ReplacementSpan {
+
+  // only read while drawing, so it can be shared by all spans
+  private static final Paint paintGlyph = new Paint(Paint.FILTER_BITMAP_FLAG | Paint.DITHER_FLAG);
+
+  private final StarGlyphCache.Key glyphKey = new StarGlyphCache.Key();
+  private final Paint paintBackground = new Paint();
+  private final Rect glyphSrc = new Rect();
+  private final RectF glyphDst = new RectF();
+  private final Paint.FontMetricsInt fontMetrics = new Paint.FontMetricsInt();
+
+  private final RatingBarStyle style;
+  private final float rating;
+  // star size the separation, border width and corner radius of the style are relative to
+  private final float starSize;
+  private final float density;
+
+  /**
+   * Creates a span with the default style of SimpleRatingBar.
+   * @param context
+   * @param rating
+   */
+  public RatingSpan(Context context, float rating) {
+    this(context, new RatingBarStyle.Builder(context).build(), rating);
+  }
+
+  /**
+   * Creates a span with the values of the srb_ attributes in the given style.
+   * @param context
+   * @param styleRes
+   * @param rating
+   */
+  public RatingSpan(Context context, @StyleRes int styleRes, float rating) {
+    this(context, RatingBarStyle.fromStyle(context, styleRes), rating);
+  }
+
+  /**
+   * Creates a span with the given style. Attributes about user interaction and pressed state are ignored.
+   * If the style has no exact star size, values are relative to the default one of SimpleRatingBar.
+   * @param context
+   * @param style
+   * @param rating
+   */
+  public RatingSpan(Context context, RatingBarStyle style, float rating) {
+    this.style = style;
+    density = context.getResources().getDisplayMetrics().density;
+    starSize = style.getStarSize() != Integer.MAX_VALUE ? style.getStarSize()
+        : applyDimension(COMPLEX_UNIT_DIP, 30, context.getResources().getDisplayMetrics());
+    this.rating = normalizeRating(rating);
+  }
+
+  @Override public int getSize(Paint paint, CharSequence text, int start, int end, Paint.FontMetricsInt fm) {
+    if (fm != null) {
+      // line height is the one of the text, which the stars fit in
+      paint.getFontMetricsInt(fm);
+    }
+    float size = getStarSize(paint);
+    float scale = size / starSize;
+    return getWidth(size, style.getStarsSeparation() * scale, getBorderMargin(style.getStarBorderWidth() * scale));
+  }
+
+  @Override public void draw(Canvas canvas, CharSequence text, int start, int end,
+                             float x, int top, int y, int bottom, Paint paint) {
+    float size = getStarSize(paint);
+    float scale = size / starSize;
+    float separation = style.getStarsSeparation() * scale;
+    float borderWidth = style.getStarBorderWidth() * scale;
+    float cornerRadius = style.getStarCornerRadius() * scale;
+    int margin = getBorderMargin(borderWidth);
+
+    if (style.getBackgroundColor() != Color.TRANSPARENT) {
+      paintBackground.setColor(style.getBackgroundColor());
+      canvas.drawRect(x, top, x + getWidth(size, separation, margin), bottom, paintBackground);
+    }
+
+    Bitmap glyphFull = obtainGlyph(size, borderWidth, cornerRadius, margin, true);
+    Bitmap glyphEmpty = obtainGlyph(size, borderWidth, cornerRadius, margin, false);
+    // stars span from the ascent to the descent of the text
+    paint.getFontMetricsInt(fontMetrics);
+    float starTop = y + fontMetrics.ascent;
+    int numberOfStars = style.getNumberOfStars();
+    float remainingTotalRating = rating;
+    for (int i = 0; i < numberOfStars; i++) {
+      float filled = Math.min(remainingTotalRating, 1f);
+      remainingTotalRating -= filled;
+      int index = style.getGravity() == SimpleRatingBar.Gravity.Left ? i : numberOfStars - 1 - i;
+      drawStarFromGlyphs(canvas, glyphFull, glyphEmpty, x + margin + index * (size + separation), starTop,
+          size, margin, filled);
+    }
+  }
+
+  /**
+   * Draws a star by blitting the full and empty glyphs, as {@link SpriteRenderer} does.
+   * A partially filled star is made of a slice of each glyph.
+   * @param filled between 0 and 1
+   */
+  private void drawStarFromGlyphs(Canvas canvas, Bitmap glyphFull, Bitmap glyphEmpty, float x, float y,
+                                  float size, int margin, float filled) {
+    int glyphSize = glyphFull.getWidth();
+    float left = x - margin;
+    float top = y - margin;
+
+    if (filled >= 1f) {
+      canvas.drawBitmap(glyphFull, left, top, paintGlyph);
+      return;
+    } else if (filled <= 0f) {
+      canvas.drawBitmap(glyphEmpty, left, top, paintGlyph);
+      return;
+    }
+
+    // column of the glyph in which the fill ends
+    boolean leftGravity = style.getGravity() == SimpleRatingBar.Gravity.Left;
+    int split = margin + Math.round(size * (leftGravity ? filled : 1 - filled));
+    Bitmap leftGlyph = leftGravity ? glyphFull : glyphEmpty;
+    Bitmap rightGlyph = leftGravity ? glyphEmpty : glyphFull;
+
+    glyphSrc.set(0, 0, split, glyphSize);
+    glyphDst.set(left, top, left + split, top + glyphSize);
+    canvas.drawBitmap(leftGlyph, glyphSrc, glyphDst, paintGlyph);
+
+    glyphSrc.set(split, 0, glyphSize, glyphSize);
+    glyphDst.set(left + split, top, left + glyphSize, top + glyphSize);
+    canvas.drawBitmap(rightGlyph, glyphSrc, glyphDst, paintGlyph);
+  }
+
+  /**
+   * Returns the glyph for this style at the given size, rendering and caching it if needed.
+   * Glyphs are the same ones {@link SpriteRenderer} uses, so spans and bars with the same style share them.
+   * @return
+   */
+  private Bitmap obtainGlyph(float size, float borderWidth, float cornerRadius, int margin, boolean filled) {
+    glyphKey.set(size, borderWidth, cornerRadius, style.isDrawBorderEnabled(), style.getBorderColor(), style.getFillColor(),
+        style.getStarBackgroundColor(), density, filled);
+    Bitmap glyph = StarGlyphCache.get(glyphKey);
+    if (glyph == null) {
+      int glyphSize = (int) Math.ceil(size) + 2 * margin;
+      glyph = Bitmap.createBitmap(glyphSize, glyphSize, Bitmap.Config.ARGB_8888);
+      glyph.eraseColor(Color.TRANSPARENT);
+      Canvas glyphCanvas = new Canvas(glyph);
+      Path starPath = new Path();
+      StarShape.buildStarPath(starPath, new float[StarShape.VERTEX_ARRAY_SIZE], size, cornerRadius);
+      starPath.offset(margin, margin);
+      StarShape.fillStars(glyphCanvas, starPath, StarShape.createFillPaint(), filled ? style.getFillColor() : style.getStarBackgroundColor(), 0xFF);
+      if (style.isDrawBorderEnabled()) {
+        Paint paintBorder = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.DITHER_FLAG);
+        paintBorder.setStyle(Paint.Style.STROKE);
+        paintBorder.setStrokeJoin(Paint.Join.ROUND);
+        paintBorder.setStrokeCap(Paint.Cap.ROUND);
+        paintBorder.setStrokeWidth(borderWidth);
+        paintBorder.setColor(style.getBorderColor());
+        glyphCanvas.drawPath(starPath, paintBorder);
+      }
+      StarGlyphCache.put(glyphKey, glyph);
+    }
+    return glyph;
+  }
+
+  /**
+   * Returns the star size for the font of the span: the distance from its ascent to its descent.
+   * It's a whole number of pixels, so spans with close text sizes share glyphs.
+   * @param paint
+   * @return
+   */
+  private float getStarSize(Paint paint) {
+    paint.getFontMetricsInt(fontMetrics);
+    return Math.max(1, fontMetrics.descent - fontMetrics.ascent);
+  }
+
+  /**
+   * Returns the width of the span, including room for the border of the stars.
+   * @return
+   */
+  private int getWidth(float size, float separation, int margin) {
+    int numberOfStars = style.getNumberOfStars();
+    return Math.round(size * numberOfStars + separation * (numberOfStars - 1)) + 2 * margin;
+  }
+
+  /**
+   * Returns the space needed around a star, so its border and antialiasing fit in.
+   * @param borderWidth
+   * @return
+   */
+  private static int getBorderMargin(float borderWidth) {
+    return (int) Math.ceil(borderWidth / 2) + 1;
+  }
+
+  /**
+   * Normalizes rating passed by argument between 0 and numberOfStars.
+   * @param rating
+   * @return
+   */
+  private float normalizeRating(float rating) {
+    if (rating < 0) {
+      Log.w("SimpleRatingBar", String.format("Assigned rating is less than 0 (%f < 0), I will set it to exactly 0", rating));
+      return 0;
+    } else if (rating > style.getNumberOfStars()) {
+      Log.w("SimpleRatingBar", String.format("Assigned rating is greater than numberOfStars (%f > %d), I will set it to exactly numberOfStars", rating, style.getNumberOfStars()));
+      return style.getNumberOfStars();
+    } else {
+      return rating;
+    }
+  }
+
+  public float getRating() {
+    return rating;
+  }
+
+  public RatingBarStyle getStyle() {
+    return style;
+  }
+}
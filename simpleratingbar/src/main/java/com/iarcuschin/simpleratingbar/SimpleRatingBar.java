@@ -5,15 +5,13 @@ import android.animation.Animator.AnimatorListener;
 import android.animation.ValueAnimator;
 import android.annotation.TargetApi;
 import android.content.Context;
-import android.content.res.TypedArray;
-import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
-import android.graphics.CornerPathEffect;
 import android.graphics.Paint;
 import android.graphics.Path;
 import android.graphics.PorterDuff;
 import android.graphics.PorterDuffXfermode;
+import android.graphics.Rect;
 import android.graphics.RectF;
 import android.os.Build;
 import android.os.Parcel;
@@ -27,12 +25,17 @@ import android.view.View;
 import android.view.animation.BounceInterpolator;
 import android.view.animation.Interpolator;
 
+import java.util.Arrays;
+
 import static android.util.TypedValue.COMPLEX_UNIT_DIP;
 import static android.util.TypedValue.COMPLEX_UNIT_SP;
 import static android.util.TypedValue.applyDimension;
 
 /**
  * A simple RatingBar for Android.
+ * Bars can be constructed off the main thread, as AsyncLayoutInflater or {@link SimpleRatingBarPool} do:
+ * constructors only resolve attributes and create drawing objects, and everything bound to the main thread
+ * (animators, layout and drawing) happens once the bar is attached.
  */
 public class SimpleRatingBar extends View {
 
@@ -64,175 +67,214 @@ public class SimpleRatingBar extends View {
     }
   }
 
-  // Configurable variables
-  private @ColorInt int borderColor;
-  private @ColorInt int fillColor;
-  private @ColorInt int backgroundColor;
-  private @ColorInt int starBackgroundColor;
-  private @ColorInt int pressedBorderColor;
-  private @ColorInt int pressedFillColor;
-  private @ColorInt int pressedBackgroundColor;
-  private @ColorInt int pressedStarBackgroundColor;
-  private int numberOfStars;
-  private float starsSeparation;
-  private float desiredStarSize;
-  private float maxStarSize;
-  private float stepSize;
+  /**
+   * Represents the technique used to draw the stars.
+   */
+  public enum RenderMode {
+    /**
+     * Software is default: stars are rasterized on each draw into an internal bitmap.
+     */
+    Software(0, Build.VERSION_CODES.BASE),
+    /**
+     * Sprite: stars are pre-rendered once into glyphs shared by all bars with the same style
+     * (see {@link StarGlyphCache}), and each draw only blits those glyphs.
+     */
+    Sprite(1, Build.VERSION_CODES.BASE),
+    /**
+     * Mask: the shape of the stars is rasterized once into an ALPHA_8 mask (one byte per pixel),
+     * and colors are applied when the mask is drawn. Output is the same as Software.
+     */
+    Mask(2, Build.VERSION_CODES.BASE),
+    /**
+     * Direct: stars are drawn straight into the view canvas, clipped at the rating position,
+     * so no bitmap is allocated and hardware acceleration is kept.
+     * It needs Marshmallow or newer, to replay the recorded stars in hardware accelerated canvases.
+     */
+    Direct(3, Build.VERSION_CODES.M),
+    /**
+     * Atlas: every rating reachable with stepSize is pre-rendered once, in normal and pressed states,
+     * into a sprite sheet shared by all bars with the same style (see {@link StarAtlasCache}),
+     * and each draw blits a single cell of it. Ratings that are not a multiple of stepSize are drawn as in Software.
+     */
+    Atlas(4, Build.VERSION_CODES.BASE),
+    /**
+     * Tiled: a full star and an empty star are drawn once into tiles, which are repeated along the bar,
+     * so drawing cost doesn't grow with numberOfStars. Useful for bars with lots of stars.
+     * If the separation between stars is narrower than their border, stars are drawn as in Software.
+     */
+    Tiled(5, Build.VERSION_CODES.BASE);
+
+    int id;
+    // render modes fall back to Software on older API levels
+    int minSdkVersion;
+    RenderMode(int id, int minSdkVersion) {
+      this.id = id;
+      this.minSdkVersion = minSdkVersion;
+    }
+
+    static RenderMode fromId(int id) {
+      for (RenderMode f : values()) {
+        if (f.id == id) return f;
+      }
+      // default value
+      Log.w("SimpleRatingBar", String.format("RenderMode chosen is not valid, I will set it to Software"));
+      return Software;
+    }
+  }
+
+  // Configurable variables: the look of the bar is shared with every bar that looks the same
+  private RatingBarStyle style;
   private float rating;
-  private boolean isIndicator;
-  private Gravity gravity;
-  private float starBorderWidth;
-  private float starCornerRadius;
-  private boolean drawBorderEnabled;
+
+  // xfermodes used to color the stars in the internal canvas, shared so drawing doesn't allocate
+  private static final PorterDuffXfermode XFERMODE_SRC_ATOP = new PorterDuffXfermode(PorterDuff.Mode.SRC_ATOP);
+  private static final PorterDuffXfermode XFERMODE_CLEAR = new PorterDuffXfermode(PorterDuff.Mode.CLEAR);
 
   // Internal variables
   private float currentStarSize;
   private float defaultStarSize;
+  // outlines of all the stars in view coordinates, so the whole bar is drawn with a single path.
+  // It's rebuilt on the first draw after a layout
+  private Path starsPath;
+  private boolean starsPathDirty = true;
+  private ValueAnimator ratingAnimator;
+  // whether the running animation changes the rating and the geometry, respectively
+  private boolean animatingRating;
+  private boolean animatingGeometry;
+  // values of the running animation, which override the ones of the style until it ends:
+  // starSize, starsSeparation, starBorderWidth, starCornerRadius and the 8 colors, in the order of animateProperties
+  private float[] animatedGeometry;
+  private int[] animatedColors;
+  // outline of a star at (0, 0) for the current star size and corner radius, rebuilt on the first draw after a layout,
+  // so bars that are never drawn don't allocate it.
+  // Bars with the same style can have different star sizes, so it's not shared through the style
+  private Path starPath;
+  private float[] starVertex;
+  private boolean starPathDirty = true;
+  // paints are per bar, as each bar sets their colors and border width up before drawing. Created on first draw
   private Paint paintStarOutline;
   private Paint paintStarBorder;
   private Paint paintStarFill;
   private Paint paintStarBackground;
-  private CornerPathEffect cornerPathEffect;
-  private Path starPath;
-  private ValueAnimator ratingAnimator;
   private OnRatingBarChangeListener ratingListener;
   private OnClickListener clickListener;
   private boolean touchInProgress;
-  private float[] starVertex;
   private RectF starsDrawingSpace;
   private RectF starsTouchSpace;
 
-  // in order to delete some drawing, and keep transparency
-  // http://stackoverflow.com/a/21865858/2271834
-  private Canvas internalCanvas;
-  private Bitmap internalBitmap;
+  // draws the stars using the technique chosen by renderMode, created on first draw
+  private RatingBarRenderer renderer;
+  // when dirty the renderer has to prepare its resources for current geometry before drawing
+  private boolean rendererDirty = true;
+  private Rect ratingChangeBounds;
+  // whether the bar and all its ancestors are visible, as reported by onVisibilityAggregated
+  private boolean aggregatedVisible = true;
+  // whether changes of size are fitted into the current bounds when the last measure specs allow it
+  private boolean fixedLayout;
+  // incremented whenever a change of the configuration affects measure or layout
+  private int layoutVersion;
+  // keys of the last measure and layout: layout version, measure specs or size, and the 4 paddings
+  private final int[] measureKey = {-1, 0, 0, 0, 0, 0, 0};
+  private final int[] layoutKey = {-1, 0, 0, 0, 0, 0, 0};
+  private int cachedMeasuredWidth;
+  private int cachedMeasuredHeight;
 
   public SimpleRatingBar(Context context) {
+    this(context, new RatingBarStyle.Builder(context).build());
+  }
+
+  /**
+   * Creates a bar with the given style.
+   * @param context
+   * @param style
+   */
+  public SimpleRatingBar(Context context, RatingBarStyle style) {
     super(context);
+    this.style = style;
     initView();
   }
 
   public SimpleRatingBar(Context context, AttributeSet attrs) {
-    super(context, attrs);
-    parseAttrs(attrs);
-    initView();
+    this(context, attrs, R.attr.simpleRatingBarStyle);
   }
 
   public SimpleRatingBar(Context context, AttributeSet attrs, int defStyleAttr) {
     super(context, attrs, defStyleAttr);
-    parseAttrs(attrs);
+    parseAttrs(attrs, defStyleAttr, 0);
+    initView();
+  }
+
+  @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+  public SimpleRatingBar(Context context, AttributeSet attrs, int defStyleAttr, int defStyleRes) {
+    super(context, attrs, defStyleAttr, defStyleRes);
+    parseAttrs(attrs, defStyleAttr, defStyleRes);
     initView();
   }
 
   /**
-   * Inits paint objects and default values.
+   * Inits default values. Drawing objects are created on first draw.
    */
   private void initView() {
-    starPath = new Path();
-    cornerPathEffect = new CornerPathEffect(starCornerRadius);
-
-    paintStarOutline = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.DITHER_FLAG);
-    paintStarOutline.setStyle(Paint.Style.FILL_AND_STROKE);
-    paintStarOutline.setAntiAlias(true);
-    paintStarOutline.setDither(true);
-    paintStarOutline.setStrokeJoin(Paint.Join.ROUND);
-    paintStarOutline.setStrokeCap(Paint.Cap.ROUND);
-    paintStarOutline.setColor(Color.BLACK);
-    paintStarOutline.setPathEffect(cornerPathEffect);
-
-    paintStarBorder = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.DITHER_FLAG);
-    paintStarBorder.setStyle(Paint.Style.STROKE);
-    paintStarBorder.setStrokeJoin(Paint.Join.ROUND);
-    paintStarBorder.setStrokeCap(Paint.Cap.ROUND);
-    paintStarBorder.setStrokeWidth(starBorderWidth);
-    paintStarBorder.setPathEffect(cornerPathEffect);
-
-    paintStarBackground = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.DITHER_FLAG);
-    paintStarBackground.setStyle(Paint.Style.FILL_AND_STROKE);
-    paintStarBackground.setAntiAlias(true);
-    paintStarBackground.setDither(true);
-    paintStarBackground.setStrokeJoin(Paint.Join.ROUND);
-    paintStarBackground.setStrokeCap(Paint.Cap.ROUND);
-
-    paintStarFill = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.DITHER_FLAG);
-    paintStarFill.setStyle(Paint.Style.FILL_AND_STROKE);
-    paintStarFill.setAntiAlias(true);
-    paintStarFill.setDither(true);
-    paintStarFill.setStrokeJoin(Paint.Join.ROUND);
-    paintStarFill.setStrokeCap(Paint.Cap.ROUND);
-
     defaultStarSize = applyDimension(COMPLEX_UNIT_DIP, 30, getResources().getDisplayMetrics());
   }
 
   /**
-   * Parses attributes defined in XML.
+   * Creates the renderer for the given render mode, falling back to Software if it's not supported by the device.
+   * @param renderMode
+   * @return
    */
-  private void parseAttrs(AttributeSet attrs) {
-    TypedArray arr = getContext().obtainStyledAttributes(attrs, R.styleable.SimpleRatingBar);
-
-    borderColor = arr.getColor(R.styleable.SimpleRatingBar_srb_borderColor, getResources().getColor(R.color.srb_golden_stars));
-    fillColor = arr.getColor(R.styleable.SimpleRatingBar_srb_fillColor, borderColor);
-    starBackgroundColor = arr.getColor(R.styleable.SimpleRatingBar_srb_starBackgroundColor, Color.TRANSPARENT);
-    backgroundColor = arr.getColor(R.styleable.SimpleRatingBar_srb_backgroundColor, Color.TRANSPARENT);
-
-    pressedBorderColor = arr.getColor(R.styleable.SimpleRatingBar_srb_pressedBorderColor, borderColor);
-    pressedFillColor = arr.getColor(R.styleable.SimpleRatingBar_srb_pressedFillColor, fillColor);
-    pressedStarBackgroundColor = arr.getColor(R.styleable.SimpleRatingBar_srb_pressedStarBackgroundColor, starBackgroundColor);
-    pressedBackgroundColor = arr.getColor(R.styleable.SimpleRatingBar_srb_pressedBackgroundColor, backgroundColor);
-
-    numberOfStars = arr.getInteger(R.styleable.SimpleRatingBar_srb_numberOfStars, 5);
-
-    starsSeparation = arr.getDimensionPixelSize(R.styleable.SimpleRatingBar_srb_starsSeparation, (int)valueToPixels(4, Dimension.DP));
-    maxStarSize = arr.getDimensionPixelSize(R.styleable.SimpleRatingBar_srb_maxStarSize, Integer.MAX_VALUE);
-    desiredStarSize = arr.getDimensionPixelSize(R.styleable.SimpleRatingBar_srb_starSize, Integer.MAX_VALUE);
-    stepSize = arr.getFloat(R.styleable.SimpleRatingBar_srb_stepSize, 0.1f);
-    starBorderWidth = arr.getFloat(R.styleable.SimpleRatingBar_srb_starBorderWidth, 5f);
-    starCornerRadius = arr.getFloat(R.styleable.SimpleRatingBar_srb_starCornerRadius, 6f);
-
-    rating = normalizeRating(arr.getFloat(R.styleable.SimpleRatingBar_srb_rating, 0f));
-    isIndicator = arr.getBoolean(R.styleable.SimpleRatingBar_srb_isIndicator, false);
-    drawBorderEnabled = arr.getBoolean(R.styleable.SimpleRatingBar_srb_drawBorderEnabled, true);
-    gravity = Gravity.fromId(arr.getInt(R.styleable.SimpleRatingBar_srb_gravity, Gravity.Left.id));
-
-    arr.recycle();
-
-    validateAttrs();
+  private RatingBarRenderer createRenderer(RenderMode renderMode) {
+    if (Build.VERSION.SDK_INT < renderMode.minSdkVersion) {
+      Log.w("SimpleRatingBar", String.format("RenderMode %s needs API level %d or newer, I will set it to Software", renderMode, renderMode.minSdkVersion));
+      renderMode = RenderMode.Software;
+    }
+    switch (renderMode) {
+      case Sprite:
+        return new SpriteRenderer(this);
+      case Mask:
+        return new MaskRenderer(this);
+      case Direct:
+        return new DirectRenderer(this);
+      case Atlas:
+        return new AtlasRenderer(this);
+      case Tiled:
+        return new TiledRenderer(this);
+      default:
+        return new SoftwareRenderer(this);
+    }
   }
 
   /**
-   * Validates parsed attributes. It will throw IllegalArgumentException if severe inconsistency is found.
-   * Warnings will be logged to LogCat.
+   * Parses attributes defined in XML.
    */
-  private void validateAttrs() {
-    if (numberOfStars <= 0) {
-      throw new IllegalArgumentException(String.format("SimpleRatingBar initialized with invalid value for numberOfStars. Found %d, but should be greater than 0", numberOfStars));
-    }
-    if (desiredStarSize != Integer.MAX_VALUE && maxStarSize != Integer.MAX_VALUE && desiredStarSize
-        > maxStarSize) {
-      Log.w("SimpleRatingBar", String.format("Initialized with conflicting values: starSize is greater than maxStarSize (%f > %f). I will ignore maxStarSize", desiredStarSize, maxStarSize));
-    }
-    if (stepSize <= 0) {
-      throw new IllegalArgumentException(String.format("SimpleRatingBar initialized with invalid value for stepSize. Found %f, but should be greater than 0", stepSize));
-    }
-    if (starBorderWidth <= 0) {
-      throw new IllegalArgumentException(String.format("SimpleRatingBar initialized with invalid value for starBorderWidth. Found %f, but should be greater than 0",
-          starBorderWidth));
-    }
-    if (starCornerRadius < 0) {
-      throw new IllegalArgumentException(String.format("SimpleRatingBar initialized with invalid value for starCornerRadius. Found %f, but should be greater or equal than 0",
-              starBorderWidth));
-    }
+  private void parseAttrs(AttributeSet attrs, int defStyleAttr, int defStyleRes) {
+    // bars inflated with the same attributes and theme share the parsed values
+    RatingBarAttrsCache.Attrs parsedAttrs = RatingBarAttrsCache.obtain(getContext(), attrs, defStyleAttr, defStyleRes);
+    style = parsedAttrs.style;
+    rating = normalizeRating(parsedAttrs.rating);
+    fixedLayout = parsedAttrs.fixedLayout;
   }
 
   @Override
   protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+    if (!updateLayoutKey(measureKey, widthMeasureSpec, heightMeasureSpec)) {
+      cachedMeasuredWidth = measureWidth(widthMeasureSpec);
+      cachedMeasuredHeight = measureHeight(heightMeasureSpec, cachedMeasuredWidth);
+    }
+
+    //MUST CALL THIS
+    setMeasuredDimension(cachedMeasuredWidth, cachedMeasuredHeight);
+  }
+
+  /**
+   * Calculates the width of the bar for the given measure spec.
+   * @param widthMeasureSpec
+   * @return
+   */
+  private int measureWidth(int widthMeasureSpec) {
     int widthMode = MeasureSpec.getMode(widthMeasureSpec);
     int widthSize = MeasureSpec.getSize(widthMeasureSpec);
-    int heightMode = MeasureSpec.getMode(heightMeasureSpec);
-    int heightSize = MeasureSpec.getSize(heightMeasureSpec);
-
     int width;
-    int height;
 
     //Measure Width
     if (widthMode == MeasureSpec.EXACTLY) {
@@ -240,37 +282,51 @@ public class SimpleRatingBar extends View {
       width = widthSize;
     } else if (widthMode == MeasureSpec.AT_MOST) {
       //Can't be bigger than...
-      if (desiredStarSize != Integer.MAX_VALUE) {
+      if (getDesiredStarSize() != Integer.MAX_VALUE) {
         // user specified a specific star size, so there is a desired width
-        int desiredWidth = calculateTotalWidth(desiredStarSize, numberOfStars, starsSeparation, true);
+        int desiredWidth = calculateTotalWidth(getDesiredStarSize(), getNumberOfStars(), getStarsSeparation(), true);
         width = Math.min(desiredWidth, widthSize);
-      } else if (maxStarSize != Integer.MAX_VALUE) {
+      } else if (getMaxStarSize() != Integer.MAX_VALUE) {
         // user specified a max star size, so there is a desired width
-        int desiredWidth = calculateTotalWidth(maxStarSize, numberOfStars, starsSeparation, true);
+        int desiredWidth = calculateTotalWidth(getMaxStarSize(), getNumberOfStars(), getStarsSeparation(), true);
         width = Math.min(desiredWidth, widthSize);
       } else {
         // using defaults
-        int desiredWidth = calculateTotalWidth(defaultStarSize, numberOfStars, starsSeparation, true);
+        int desiredWidth = calculateTotalWidth(defaultStarSize, getNumberOfStars(), getStarsSeparation(), true);
         width = Math.min(desiredWidth, widthSize);
       }
     } else {
       //Be whatever you want
-      if (desiredStarSize != Integer.MAX_VALUE) {
+      if (getDesiredStarSize() != Integer.MAX_VALUE) {
         // user specified a specific star size, so there is a desired width
-        int desiredWidth = calculateTotalWidth(desiredStarSize, numberOfStars, starsSeparation, true);
+        int desiredWidth = calculateTotalWidth(getDesiredStarSize(), getNumberOfStars(), getStarsSeparation(), true);
         width = desiredWidth;
-      } else if (maxStarSize != Integer.MAX_VALUE) {
+      } else if (getMaxStarSize() != Integer.MAX_VALUE) {
         // user specified a max star size, so there is a desired width
-        int desiredWidth = calculateTotalWidth(maxStarSize, numberOfStars, starsSeparation, true);
+        int desiredWidth = calculateTotalWidth(getMaxStarSize(), getNumberOfStars(), getStarsSeparation(), true);
         width = desiredWidth;
       } else {
         // using defaults
-        int desiredWidth = calculateTotalWidth(defaultStarSize, numberOfStars, starsSeparation, true);
+        int desiredWidth = calculateTotalWidth(defaultStarSize, getNumberOfStars(), getStarsSeparation(), true);
         width = desiredWidth;
       }
     }
 
-    float tentativeStarSize = (width - getPaddingLeft() - getPaddingRight() - starsSeparation * (numberOfStars - 1)) / numberOfStars;
+    return width;
+  }
+
+  /**
+   * Calculates the height of the bar for the given measure spec and the already measured width.
+   * @param heightMeasureSpec
+   * @param width
+   * @return
+   */
+  private int measureHeight(int heightMeasureSpec, int width) {
+    int heightMode = MeasureSpec.getMode(heightMeasureSpec);
+    int heightSize = MeasureSpec.getSize(heightMeasureSpec);
+    int height;
+
+    float tentativeStarSize = (width - getPaddingLeft() - getPaddingRight() - getStarsSeparation() * (getNumberOfStars() - 1)) / getNumberOfStars();
 
     //Measure Height
     if (heightMode == MeasureSpec.EXACTLY) {
@@ -278,51 +334,108 @@ public class SimpleRatingBar extends View {
       height = heightSize;
     } else if (heightMode == MeasureSpec.AT_MOST) {
       //Can't be bigger than...
-      if (desiredStarSize != Integer.MAX_VALUE) {
+      if (getDesiredStarSize() != Integer.MAX_VALUE) {
         // user specified a specific star size, so there is a desired width
-        int desiredHeight = calculateTotalHeight(desiredStarSize, numberOfStars, starsSeparation, true);
+        int desiredHeight = calculateTotalHeight(getDesiredStarSize(), getNumberOfStars(), getStarsSeparation(), true);
         height = Math.min(desiredHeight, heightSize);
-      } else if (maxStarSize != Integer.MAX_VALUE) {
+      } else if (getMaxStarSize() != Integer.MAX_VALUE) {
         // user specified a max star size, so there is a desired width
-        int desiredHeight = calculateTotalHeight(maxStarSize, numberOfStars, starsSeparation, true);
+        int desiredHeight = calculateTotalHeight(getMaxStarSize(), getNumberOfStars(), getStarsSeparation(), true);
         height = Math.min(desiredHeight, heightSize);
       } else {
         // using defaults
-        int desiredHeight = calculateTotalHeight(tentativeStarSize, numberOfStars, starsSeparation, true);
+        int desiredHeight = calculateTotalHeight(tentativeStarSize, getNumberOfStars(), getStarsSeparation(), true);
         height = Math.min(desiredHeight, heightSize);
       }
     } else {
       //Be whatever you want
-      if (desiredStarSize != Integer.MAX_VALUE) {
+      if (getDesiredStarSize() != Integer.MAX_VALUE) {
         // user specified a specific star size, so there is a desired width
-        int desiredHeight = calculateTotalHeight(desiredStarSize, numberOfStars, starsSeparation, true);
+        int desiredHeight = calculateTotalHeight(getDesiredStarSize(), getNumberOfStars(), getStarsSeparation(), true);
         height = desiredHeight;
-      } else if (maxStarSize != Integer.MAX_VALUE) {
+      } else if (getMaxStarSize() != Integer.MAX_VALUE) {
         // user specified a max star size, so there is a desired width
-        int desiredHeight = calculateTotalHeight(maxStarSize, numberOfStars, starsSeparation, true);
+        int desiredHeight = calculateTotalHeight(getMaxStarSize(), getNumberOfStars(), getStarsSeparation(), true);
         height = desiredHeight;
       } else {
         // using defaults
-        int desiredHeight = calculateTotalHeight(tentativeStarSize, numberOfStars, starsSeparation, true);
+        int desiredHeight = calculateTotalHeight(tentativeStarSize, getNumberOfStars(), getStarsSeparation(), true);
         height = desiredHeight;
       }
     }
-
-    //MUST CALL THIS
-    setMeasuredDimension(width, height);
+    return height;
   }
 
   @Override protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
     super.onLayout(changed, left, top, right, bottom);
 
+    if (!updateLayoutKey(layoutKey, getWidth(), getHeight())) {
+      layoutStars();
+    }
+  }
+
+  /**
+   * Stores the layout version, the given values and the padding in the key of a measure or layout.
+   * @param key
+   * @param first
+   * @param second
+   * @return whether the key already had those values, so the results calculated for it are still valid
+   */
+  private boolean updateLayoutKey(int[] key, int first, int second) {
+    boolean valid = key[0] == layoutVersion && key[1] == first && key[2] == second
+        && key[3] == getPaddingLeft() && key[4] == getPaddingTop()
+        && key[5] == getPaddingRight() && key[6] == getPaddingBottom();
+    key[0] = layoutVersion;
+    key[1] = first;
+    key[2] = second;
+    key[3] = getPaddingLeft();
+    key[4] = getPaddingTop();
+    key[5] = getPaddingRight();
+    key[6] = getPaddingBottom();
+    return valid;
+  }
+
+  /**
+   * Lays out the bar again after a change of the configuration that affects its size.
+   * With fixedLayout, if the bar measures the same for the last measure specs, stars are fitted into
+   * the current bounds and no layout pass is requested to the parents.
+   */
+  private void requestStarsLayout() {
+    requestStarsLayout(fixedLayout);
+  }
+
+  /**
+   * Lays out the bar again after a change of the configuration that affects its size.
+   * @param fitIntoBounds whether stars are fitted into the current bounds, without requesting a layout pass
+   *                      to the parents, when the bar measures the same for the last measure specs
+   */
+  private void requestStarsLayout(boolean fitIntoBounds) {
+    layoutVersion++;
+    if (fitIntoBounds && starsDrawingSpace != null && !isLayoutRequested()
+        && measureWidth(measureKey[1]) == cachedMeasuredWidth
+        && measureHeight(measureKey[2], cachedMeasuredWidth) == cachedMeasuredHeight) {
+      measureKey[0] = layoutVersion;
+      layoutKey[0] = layoutVersion;
+      layoutStars();
+    } else {
+      requestLayout();
+    }
+  }
+
+  /**
+   * Calculates star size and everything that depends on it, for current view size.
+   */
+  private void layoutStars() {
     int width = getWidth();
     int height = getHeight();
-    if (desiredStarSize == Integer.MAX_VALUE) {
+    if (getDesiredStarSize() == Integer.MAX_VALUE) {
       currentStarSize = calculateBestStarSize(width, height);
     } else {
-      currentStarSize = desiredStarSize;
+      currentStarSize = getDesiredStarSize();
     }
     performStarSizeAssociatedCalculations(width, height);
+    starsPathDirty = true;
+    rendererDirty = true;
   }
 
   /**
@@ -332,20 +445,20 @@ public class SimpleRatingBar extends View {
    * @param height
    * */
   private float calculateBestStarSize(int width, int height) {
-    if (maxStarSize != Integer.MAX_VALUE) {
-      float desiredTotalWidth = calculateTotalWidth(maxStarSize, numberOfStars, starsSeparation, true);
-      float desiredTotalHeight = calculateTotalHeight(maxStarSize, numberOfStars, starsSeparation, true);
+    if (getMaxStarSize() != Integer.MAX_VALUE) {
+      float desiredTotalWidth = calculateTotalWidth(getMaxStarSize(), getNumberOfStars(), getStarsSeparation(), true);
+      float desiredTotalHeight = calculateTotalHeight(getMaxStarSize(), getNumberOfStars(), getStarsSeparation(), true);
       if (desiredTotalWidth >= width || desiredTotalHeight >= height) {
         // we need to shrink the size of the stars
-        float sizeBasedOnWidth = (width - getPaddingLeft() - getPaddingRight() - starsSeparation * (numberOfStars - 1)) / numberOfStars;
+        float sizeBasedOnWidth = (width - getPaddingLeft() - getPaddingRight() - getStarsSeparation() * (getNumberOfStars() - 1)) / getNumberOfStars();
         float sizeBasedOnHeight = height - getPaddingTop() - getPaddingBottom();
         return Math.min(sizeBasedOnWidth, sizeBasedOnHeight);
       } else {
-        return maxStarSize;
+        return getMaxStarSize();
       }
     } else {
       // expand the most we can
-      float sizeBasedOnWidth = (width - getPaddingLeft() - getPaddingRight() - starsSeparation * (numberOfStars - 1)) / numberOfStars;
+      float sizeBasedOnWidth = (width - getPaddingLeft() - getPaddingRight() - getStarsSeparation() * (getNumberOfStars() - 1)) / getNumberOfStars();
       float sizeBasedOnHeight = height - getPaddingTop() - getPaddingBottom();
       return Math.min(sizeBasedOnWidth, sizeBasedOnHeight);
     }
@@ -357,36 +470,62 @@ public class SimpleRatingBar extends View {
    * @param height
    */
   private void performStarSizeAssociatedCalculations(int width, int height) {
-    float totalStarsWidth = calculateTotalWidth(currentStarSize, numberOfStars, starsSeparation, false);
-    float totalStarsHeight = calculateTotalHeight(currentStarSize, numberOfStars, starsSeparation, false);
+    float totalStarsWidth = calculateTotalWidth(currentStarSize, getNumberOfStars(), getStarsSeparation(), false);
+    float totalStarsHeight = calculateTotalHeight(currentStarSize, getNumberOfStars(), getStarsSeparation(), false);
     float startingX = (width - getPaddingLeft() - getPaddingRight())/2 - totalStarsWidth/2 + getPaddingLeft();
     float startingY = (height - getPaddingTop() - getPaddingBottom())/2 - totalStarsHeight/2 + getPaddingTop();
-    starsDrawingSpace = new RectF(startingX, startingY, startingX + totalStarsWidth, startingY + totalStarsHeight);
+    if (starsDrawingSpace == null) {
+      // allocated once, then updated in place on each layout
+      starsDrawingSpace = new RectF();
+    }
+    starsDrawingSpace.set(startingX, startingY, startingX + totalStarsWidth, startingY + totalStarsHeight);
+    updateStarsTouchSpace();
+    starPathDirty = true;
+  }
+
+  /**
+   * Updates the area accepting touches, which is slightly wider than the stars.
+   * Indicator bars don't handle touches, so they don't need it.
+   */
+  private void updateStarsTouchSpace() {
+    if (isIndicator() || starsDrawingSpace == null) {
+      return;
+    }
+    if (starsTouchSpace == null) {
+      starsTouchSpace = new RectF();
+    }
     float aux = starsDrawingSpace.width() * 0.05f;
-    starsTouchSpace = new RectF(starsDrawingSpace.left - aux, starsDrawingSpace.top, starsDrawingSpace.right + aux, starsDrawingSpace.bottom);
-
-    float bottomFromMargin = currentStarSize * 0.2f;
-    float triangleSide = currentStarSize * 0.35f;
-    float half = currentStarSize * 0.5f;
-    float tipVerticalMargin = currentStarSize * 0.05f;
-    float tipHorizontalMargin = currentStarSize * 0.03f;
-    float innerUpHorizontalMargin = currentStarSize * 0.38f;
-    float innerBottomHorizontalMargin = currentStarSize * 0.32f;
-    float innerBottomVerticalMargin = currentStarSize * 0.6f;
-    float innerCenterVerticalMargin = currentStarSize * 0.27f;
-
-    starVertex = new float[] {
-        tipHorizontalMargin, innerUpHorizontalMargin, // top left
-        tipHorizontalMargin + triangleSide, innerUpHorizontalMargin,
-        half, tipVerticalMargin, // top tip
-        currentStarSize - tipHorizontalMargin - triangleSide, innerUpHorizontalMargin,
-        currentStarSize - tipHorizontalMargin, innerUpHorizontalMargin, // top right
-        currentStarSize - innerBottomHorizontalMargin, innerBottomVerticalMargin,
-        currentStarSize - bottomFromMargin, currentStarSize - tipVerticalMargin, // bottom right
-        half, currentStarSize - innerCenterVerticalMargin,
-        bottomFromMargin, currentStarSize - tipVerticalMargin, // bottom left
-        innerBottomHorizontalMargin, innerBottomVerticalMargin
-    };
+    starsTouchSpace.set(starsDrawingSpace.left - aux, starsDrawingSpace.top, starsDrawingSpace.right + aux, starsDrawingSpace.bottom);
+  }
+
+  /**
+   * Returns the outline of a star at (0, 0) for the current star size, building it if it's outdated.
+   * @return
+   */
+  private Path getStarPath() {
+    if (starPathDirty) {
+      if (starPath == null) {
+        starPath = new Path();
+        starVertex = new float[StarShape.VERTEX_ARRAY_SIZE];
+      }
+      StarShape.buildStarPath(starPath, starVertex, currentStarSize, getStarCornerRadius());
+      starPathDirty = false;
+    }
+    return starPath;
+  }
+
+  /**
+   * Builds starsPath by placing a copy of the star path at the position of each star.
+   */
+  private void buildStarsPath() {
+    Path starPath = getStarPath();
+    if (starsPath == null) {
+      starsPath = new Path();
+    }
+    starsPath.rewind();
+    for (int i = 0; i < getNumberOfStars(); i++) {
+      starsPath.addPath(starPath, starsDrawingSpace.left + i * (getStarsSeparation() + currentStarSize), starsDrawingSpace.top);
+    }
   }
 
   /**
@@ -414,30 +553,55 @@ public class SimpleRatingBar extends View {
     return Math.round(starSize) + (padding ? getPaddingTop() + getPaddingBottom() : 0);
   }
 
-  @Override
-  protected void onSizeChanged(int w, int h, int oldw, int oldh) {
-    super.onSizeChanged(w, h, oldw, oldh);
+  @Override protected void onAttachedToWindow() {
+    super.onAttachedToWindow();
+    // renderer resources were released when detached, they are prepared again on next draw
+    rendererDirty = true;
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N && ratingAnimator != null && ratingAnimator.isPaused()) {
+      ratingAnimator.resume();
+    }
+  }
 
-    generateInternalCanvas(w, h);
+  @Override protected void onDetachedFromWindow() {
+    super.onDetachedFromWindow();
+    if (ratingAnimator != null && ratingAnimator.isStarted()) {
+      // detached bars don't need frames, but a RecyclerView or ViewPager may attach them again soon,
+      // so the animation is paused where it is instead of jumping to its end.
+      // Before Nougat paused animators keep receiving frames, which would leak the bar, so it's stopped there
+      if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+        ratingAnimator.pause();
+      } else {
+        ratingAnimator.cancel();
+      }
+    }
+    // let other bars use the renderer buffers while this one is not shown
+    releaseRenderer();
   }
 
-  /**
-   * Generates internal canvas on which the ratingbar will be drawn.
-   * @param w
-   * @param h
-   */
-  private void generateInternalCanvas(int w, int h) {
-    if (internalBitmap != null) {
-      // avoid leaking memory after losing the reference
-      internalBitmap.recycle();
+  @TargetApi(Build.VERSION_CODES.N)
+  @Override public void onVisibilityAggregated(boolean isVisible) {
+    super.onVisibilityAggregated(isVisible);
+    if (isVisible == aggregatedVisible) {
+      return;
     }
+    aggregatedVisible = isVisible;
+    if (isVisible) {
+      // invalidations were skipped while hidden
+      invalidate();
+    } else {
+      // let other bars use the renderer buffers while this one is hidden
+      releaseRenderer();
+    }
+  }
 
-    if (w > 0 && h > 0) {
-      // if width == 0 or height == 0 we don't need internal bitmap, cause view won't be drawn anyway.
-      internalBitmap = Bitmap.createBitmap(w, h, Bitmap.Config.ARGB_8888);
-      internalBitmap.eraseColor(Color.TRANSPARENT);
-      internalCanvas = new Canvas(internalBitmap);
+  /**
+   * Releases the resources of the renderer, which are prepared again on next draw.
+   */
+  private void releaseRenderer() {
+    if (renderer != null) {
+      renderer.release();
     }
+    rendererDirty = true;
   }
 
   @Override protected void onDraw(Canvas canvas) {
@@ -446,110 +610,174 @@ public class SimpleRatingBar extends View {
     int height = getHeight();
     int width = getWidth();
 
-    if (width == 0 || height == 0) {
-      // don't draw view with width or height equal zero.
+    if (width == 0 || height == 0 || !aggregatedVisible) {
+      // don't draw view with width or height equal zero, or hidden.
       return;
     }
 
-    // clean internal canvas
-    internalCanvas.drawColor(0, PorterDuff.Mode.CLEAR);
+    // choose colors, before the renderer prepares its resources with them
+    setupColorsInPaint(touchInProgress);
 
-    // choose colors
-    setupColorsInPaint();
-
-    // draw stars
-    if (gravity == Gravity.Left) {
-      drawFromLeftToRight(internalCanvas);
-    } else {
-      drawFromRightToLeft(internalCanvas);
+    // resources are created on first draw, and updated on the first draw after a layout
+    if (renderer == null) {
+      renderer = createRenderer(style.getRenderMode());
+    }
+    if (rendererDirty) {
+      renderer.prepare();
+      rendererDirty = false;
     }
 
     // draw view background color
-    if (touchInProgress) {
-      canvas.drawColor(pressedBackgroundColor);
+    drawBackgroundColor(canvas);
+
+    renderer.draw(canvas);
+  }
+
+  /**
+   * Draws the background color of the view depending on whether current state is pressed or normal.
+   * @param canvas
+   */
+  private void drawBackgroundColor(Canvas canvas) {
+    canvas.drawColor(getBarBackgroundColor(touchInProgress));
+  }
+
+  /**
+   * Calculates the horizontal position, in view coordinates, where the fill of the stars ends.
+   * @return
+   */
+  float calculateFillPosition() {
+    return calculateFillPosition(rating);
+  }
+
+  /**
+   * Calculates the horizontal position, in view coordinates, where the fill of the stars ends for the given rating.
+   * @param rating
+   * @return
+   */
+  float calculateFillPosition(float rating) {
+    int fullStars = (int) rating;
+    float offset = fullStars * (currentStarSize + getStarsSeparation()) + (rating - fullStars) * currentStarSize;
+    return getGravity() == Gravity.Left ? starsDrawingSpace.left + offset : starsDrawingSpace.right - offset;
+  }
+
+  /**
+   * Sets the color for the different paints depending on whether the given state is pressed or normal.
+   * @param pressed
+   */
+  void setupColorsInPaint(boolean pressed) {
+    if (paintStarOutline == null) {
+      createPaints();
+    }
+    // border width might be animated
+    paintStarBorder.setStrokeWidth(getStarBorderWidth());
+    int fillColor = pressed ? getPressedFillColor() : getFillColor();
+    int starBackgroundColor = pressed ? getPressedStarBackgroundColor() : getStarBackgroundColor();
+    paintStarBorder.setColor(pressed ? getPressedBorderColor() : getBorderColor());
+    paintStarFill.setColor(fillColor);
+    if (fillColor != Color.TRANSPARENT) {
+      paintStarFill.setXfermode(XFERMODE_SRC_ATOP);
     } else {
-      canvas.drawColor(backgroundColor);
+      paintStarFill.setXfermode(XFERMODE_CLEAR);
     }
+    paintStarBackground.setColor(starBackgroundColor);
+    if (starBackgroundColor != Color.TRANSPARENT) {
+      paintStarBackground.setXfermode(XFERMODE_SRC_ATOP);
+    } else {
+      paintStarBackground.setXfermode(XFERMODE_CLEAR);
+    }
+  }
+
+  /**
+   * Creates the paints used to draw the stars, whose colors are set up before each draw.
+   */
+  private void createPaints() {
+    paintStarOutline = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.DITHER_FLAG);
+    paintStarOutline.setStyle(Paint.Style.FILL_AND_STROKE);
+    paintStarOutline.setStrokeJoin(Paint.Join.ROUND);
+    paintStarOutline.setStrokeCap(Paint.Cap.ROUND);
+    paintStarOutline.setColor(Color.BLACK);
+
+    paintStarBorder = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.DITHER_FLAG);
+    paintStarBorder.setStyle(Paint.Style.STROKE);
+    paintStarBorder.setStrokeJoin(Paint.Join.ROUND);
+    paintStarBorder.setStrokeCap(Paint.Cap.ROUND);
+
+    paintStarBackground = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.DITHER_FLAG);
+    paintStarBackground.setStyle(Paint.Style.FILL_AND_STROKE);
+    paintStarBackground.setStrokeJoin(Paint.Join.ROUND);
+    paintStarBackground.setStrokeCap(Paint.Cap.ROUND);
 
-    // draw internal bitmap to definite canvas
-    canvas.drawBitmap(internalBitmap, 0, 0, null);
+    paintStarFill = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.DITHER_FLAG);
+    paintStarFill.setStyle(Paint.Style.FILL_AND_STROKE);
+    paintStarFill.setStrokeJoin(Paint.Join.ROUND);
+    paintStarFill.setStrokeCap(Paint.Cap.ROUND);
   }
 
   /**
-   * Sets the color for the different paints depending on whether current state is pressed or normal.
+   * Draws all the stars with a constant number of operations, regardless of numberOfStars:
+   * the outline of the stars, a rect of fill color and a rect of star background color split at the rating position,
+   * and the border on top.
+   * @param canvas
    */
-  private void setupColorsInPaint() {
-    if (touchInProgress) {
-      paintStarBorder.setColor(pressedBorderColor);
-      paintStarFill.setColor(pressedFillColor);
-      if (pressedFillColor != Color.TRANSPARENT) {
-        paintStarFill.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC_ATOP));
-      } else {
-        paintStarFill.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.CLEAR));
-      }
-      paintStarBackground.setColor(pressedStarBackgroundColor);
-      if (pressedStarBackgroundColor != Color.TRANSPARENT) {
-        paintStarBackground.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC_ATOP));
-      } else {
-        paintStarBackground.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.CLEAR));
-      }
+  void drawStars(Canvas canvas) {
+    drawStars(canvas, calculateFillPosition());
+  }
+
+  /**
+   * Draws all the stars, with the fill ending at the given position instead of the current rating.
+   * @param canvas
+   * @param fillPosition horizontal position, in view coordinates
+   */
+  void drawStars(Canvas canvas, float fillPosition) {
+    float top = starsDrawingSpace.top;
+    float bottom = starsDrawingSpace.bottom;
+
+    // draw stars outline
+    drawStarsOutline(canvas);
+
+    // Note: below, currentStarSize*0.02f is a minor correction so the user won't see a vertical black line in between the fill and empty color
+    if (getGravity() == Gravity.Left) {
+      // color stars fill
+      canvas.drawRect(starsDrawingSpace.left, top, fillPosition + currentStarSize * 0.02f, bottom, paintStarFill);
+      // draw stars background
+      canvas.drawRect(fillPosition, top, starsDrawingSpace.right, bottom, paintStarBackground);
     } else {
-      paintStarBorder.setColor(borderColor);
-      paintStarFill.setColor(fillColor);
-      if (fillColor != Color.TRANSPARENT) {
-        paintStarFill.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC_ATOP));
-      } else {
-        paintStarFill.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.CLEAR));
-      }
-      paintStarBackground.setColor(starBackgroundColor);
-      if (starBackgroundColor != Color.TRANSPARENT) {
-        paintStarBackground.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC_ATOP));
-      } else {
-        paintStarBackground.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.CLEAR));
-      }
+      // color stars fill
+      canvas.drawRect(fillPosition - currentStarSize * 0.02f, top, starsDrawingSpace.right, bottom, paintStarFill);
+      // draw stars background
+      canvas.drawRect(starsDrawingSpace.left, top, fillPosition, bottom, paintStarBackground);
     }
+
+    // draw stars border on top
+    drawStarsBorder(canvas);
   }
 
   /**
-   * Draws the view when gravity is Left
-   * @param internalCanvas
+   * Fills all the stars with black, which the fill and star background colors are later drawn on top of.
+   * @param canvas
    */
-  private void drawFromLeftToRight(Canvas internalCanvas) {
-    float remainingTotalRating = rating;
-    float startingX = starsDrawingSpace.left;
-    float startingY = starsDrawingSpace.top;
-    for (int i = 0; i < numberOfStars; i++) {
-      if (remainingTotalRating >= 1) {
-        drawStar(internalCanvas, startingX, startingY, 1f, Gravity.Left);
-        remainingTotalRating -= 1;
-      } else {
-        drawStar(internalCanvas, startingX, startingY, remainingTotalRating, Gravity.Left);
-        remainingTotalRating = 0;
-      }
-      startingX += starsSeparation + currentStarSize;
-    }
+  void drawStarsOutline(Canvas canvas) {
+    canvas.drawPath(getStarsPath(), paintStarOutline);
   }
 
   /**
-   * Draws the view when gravity is Right
-   * @param internalCanvas
+   * Draws the border of all the stars, if enabled.
+   * @param canvas
    */
-  private void drawFromRightToLeft(Canvas internalCanvas) {
-    float remainingTotalRating = rating;
-    float startingX = starsDrawingSpace.right - currentStarSize;
-    float startingY = starsDrawingSpace.top;
-    for (int i = 0; i < numberOfStars; i++) {
-      if (remainingTotalRating >= 1) {
-        drawStar(internalCanvas, startingX, startingY, 1f, Gravity.Right);
-        remainingTotalRating -= 1;
-      } else {
-        drawStar(internalCanvas, startingX, startingY, remainingTotalRating, Gravity.Right);
-        remainingTotalRating = 0;
-      }
-      startingX -= starsSeparation + currentStarSize;
+  void drawStarsBorder(Canvas canvas) {
+    if (isDrawBorderEnabled()) {
+      canvas.drawPath(getStarsPath(), paintStarBorder);
     }
   }
 
+  /**
+   * Returns the space needed around the stars, so the border and its antialiasing fit in.
+   * @return
+   */
+  int getBorderMargin() {
+    return (int) Math.ceil(getStarBorderWidth() / 2) + 1;
+  }
+
   /**
    * Draws a star in the provided canvas.
    * @param canvas
@@ -558,20 +786,12 @@ public class SimpleRatingBar extends View {
    * @param filled between 0 and 1
    * @param gravity Left or Right
    */
-  private void drawStar(Canvas canvas, float x, float y, float filled, Gravity gravity) {
+  void drawStar(Canvas canvas, float x, float y, float filled, Gravity gravity) {
     // calculate fill in pixels
     float fill = currentStarSize * filled;
 
-    // prepare path for star
-    starPath.reset();
-    starPath.moveTo(x + starVertex[0], y + starVertex[1]);
-    for(int i = 2; i < starVertex.length; i=i+2) {
-      starPath.lineTo(x + starVertex[i], y + starVertex[i+1]);
-    }
-    starPath.close();
-
     // draw star outline
-    canvas.drawPath(starPath, paintStarOutline);
+    drawStarPath(canvas, x, y, paintStarOutline);
 
     // Note: below, currentStarSize*0.02f is a minor correction so the user won't see a vertical black line in between the fill and empty color
     if (gravity == Gravity.Left) {
@@ -587,23 +807,40 @@ public class SimpleRatingBar extends View {
     }
 
     // draw star border on top
-    if (drawBorderEnabled) {
-      canvas.drawPath(starPath, paintStarBorder);
+    if (isDrawBorderEnabled()) {
+      drawStarPath(canvas, x, y, paintStarBorder);
     }
   }
 
+  /**
+   * Draws the star path at the given position.
+   * @param canvas
+   * @param x left of the star
+   * @param y top of the star
+   * @param paint
+   */
+  private void drawStarPath(Canvas canvas, float x, float y, Paint paint) {
+    canvas.save();
+    canvas.translate(x, y);
+    canvas.drawPath(getStarPath(), paint);
+    canvas.restore();
+  }
+
   @Override
   public boolean onTouchEvent(MotionEvent event) {
-    if (isIndicator  || (ratingAnimator != null && ratingAnimator.isRunning())) {
+    if (isIndicator()  || (animatingRating && ratingAnimator.isRunning())) {
       return false;
     }
 
+    float previousRating = rating;
+    boolean previousTouchInProgress = touchInProgress;
+
     int action = event.getAction() & MotionEvent.ACTION_MASK;
     switch(action) {
       case MotionEvent.ACTION_DOWN:
       case MotionEvent.ACTION_MOVE:
         // check if action is performed on stars
-        if (starsTouchSpace.contains(event.getX(), event.getY())) {
+        if (starsTouchSpace != null && starsTouchSpace.contains(event.getX(), event.getY())) {
           touchInProgress = true;
           setNewRatingFromTouch(event.getX(), event.getY());
         } else {
@@ -628,9 +865,75 @@ public class SimpleRatingBar extends View {
 
     }
 
-    invalidate();
-    return true;
-  }
+    if (touchInProgress != previousTouchInProgress) {
+      // colors change between pressed and normal state
+      invalidate();
+    } else {
+      invalidateRatingChange(previousRating, rating);
+    }
+    return true;
+  }
+
+  /**
+   * Invalidates only the area of the stars whose fill differs between both ratings, where that saves drawing.
+   * @param previousRating
+   * @param newRating
+   */
+  private void invalidateRatingChange(float previousRating, float newRating) {
+    if (!aggregatedVisible) {
+      // the whole bar is redrawn once visible
+      return;
+    }
+    if (starsDrawingSpace == null) {
+      // not laid out yet
+      invalidate();
+      return;
+    }
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP && isHardwareAccelerated()
+        && getLayerType() != LAYER_TYPE_SOFTWARE) {
+      // since Lollipop hardware accelerated rendering ignores the dirty rect and redraws the display list
+      // of the whole view (invalidate(Rect) is deprecated in Pie), so bounds only pay off with software rendering.
+      // SoftwareRenderer still re-rasterizes only the changed stars of its internal bitmap
+      invalidate();
+      return;
+    }
+    if (ratingChangeBounds == null) {
+      ratingChangeBounds = new Rect();
+    }
+    if (calculateRatingChangeBounds(previousRating, newRating, ratingChangeBounds)) {
+      invalidate(ratingChangeBounds.left, ratingChangeBounds.top, ratingChangeBounds.right, ratingChangeBounds.bottom);
+    }
+  }
+
+  /**
+   * Calculates the area, in view coordinates, of the stars whose fill differs between both ratings.
+   * @param previousRating
+   * @param newRating
+   * @param bounds where the result is stored
+   * @return false if no star changed
+   */
+  boolean calculateRatingChangeBounds(float previousRating, float newRating, Rect bounds) {
+    if (previousRating == newRating) {
+      return false;
+    }
+
+    // star i is filled by clamp(rating - i, 0, 1), so only stars between both ratings change
+    int firstStar = Math.max(0, (int) Math.min(previousRating, newRating));
+    int lastStar = Math.min(getNumberOfStars() - 1, (int) Math.ceil(Math.max(previousRating, newRating)) - 1);
+    if (lastStar < firstStar) {
+      return false;
+    }
+    float startOffset = firstStar * (currentStarSize + getStarsSeparation());
+    float endOffset = lastStar * (currentStarSize + getStarsSeparation()) + currentStarSize;
+    float left = getGravity() == Gravity.Left ? starsDrawingSpace.left + startOffset : starsDrawingSpace.right - endOffset;
+    float right = getGravity() == Gravity.Left ? starsDrawingSpace.left + endOffset : starsDrawingSpace.right - startOffset;
+
+    // include the border, which can go beyond the star
+    int margin = getBorderMargin();
+    bounds.set((int) Math.floor(left) - margin, (int) Math.floor(starsDrawingSpace.top) - margin,
+        (int) Math.ceil(right) + margin, (int) Math.ceil(starsDrawingSpace.bottom) + margin);
+    return true;
+  }
 
   /**
    * Assigns a rating to the touch event.
@@ -639,7 +942,7 @@ public class SimpleRatingBar extends View {
    */
   private void setNewRatingFromTouch(float x, float y) {
     // normalize x to inside starsDrawinSpace
-    if (gravity != Gravity.Left) {
+    if (getGravity() != Gravity.Left) {
       x = getWidth() - x;
     }
 
@@ -648,22 +951,23 @@ public class SimpleRatingBar extends View {
       rating = 0;
       return;
     } else if (x >  starsDrawingSpace.right) {
-      rating = numberOfStars;
+      rating = getNumberOfStars();
       return;
     }
 
     x = x - starsDrawingSpace.left;
     // reduce the width to allow the user reach the top and bottom values of rating (0 and numberOfStars)
-    rating = (float)numberOfStars / starsDrawingSpace.width() * x;
+    rating = (float)getNumberOfStars() / starsDrawingSpace.width() * x;
 
     // correct rating in case step size is present
+    float stepSize = getStepSize();
     float mod = rating % stepSize;
     if (mod < stepSize/4) {
       rating = rating - mod;
       rating = Math.max(0, rating);
     } else {
       rating =  rating - mod + stepSize;
-      rating = Math.min(numberOfStars, rating);
+      rating = Math.min(getNumberOfStars(), rating);
     }
   }
   
@@ -717,8 +1021,104 @@ public class SimpleRatingBar extends View {
       }
   }
 
+  /* ----------- STATE SHARED WITH RENDERERS ----------- */
+
+  /**
+   * Returns the area of the view covered by the stars, or null if the view was not laid out yet.
+   * @return
+   */
+  RectF getStarsDrawingSpace() {
+    return starsDrawingSpace;
+  }
+
+  /**
+   * Returns the outlines of all the stars, in view coordinates.
+   * @return
+   */
+  Path getStarsPath() {
+    if (starsPathDirty && starsDrawingSpace != null) {
+      buildStarsPath();
+      starsPathDirty = false;
+    }
+    return starsPath;
+  }
+
+  boolean isTouchInProgress() {
+    return touchInProgress;
+  }
+
+  boolean isAnimatingStyle() {
+    return animatedColors != null || animatedGeometry != null;
+  }
+
+  boolean isAnimatingGeometry() {
+    return animatingGeometry;
+  }
+
+  @ColorInt int getCurrentBorderColor() {
+    return touchInProgress ? getPressedBorderColor() : getBorderColor();
+  }
+
+  @ColorInt int getCurrentFillColor() {
+    return touchInProgress ? getPressedFillColor() : getFillColor();
+  }
+
+  @ColorInt int getCurrentStarBackgroundColor() {
+    return touchInProgress ? getPressedStarBackgroundColor() : getStarBackgroundColor();
+  }
+
   /* ----------- GETTERS AND SETTERS ----------- */
 
+  // setters compare with the style first, so unchanged values don't build and intern a new style
+
+  /**
+   * Returns the style of the bar, which holds every configurable value except the rating.
+   * @return
+   */
+  public RatingBarStyle getStyle() {
+    return style;
+  }
+
+  /**
+   * Applies a style to the bar. Bars with equal styles share the same instance.
+   * Rating is kept, but limited to the new numberOfStars.
+   * If the style doesn't change, nothing is laid out nor redrawn.
+   * @param style
+   */
+  public void setStyle(RatingBarStyle style) {
+    RatingBarStyle previousStyle = this.style;
+    if (style == previousStyle) {
+      // styles are interned, so there is nothing to update
+      return;
+    }
+    this.style = style;
+
+    if (style.getRenderMode() != previousStyle.getRenderMode() && renderer != null) {
+      // the renderer for the new mode is created on next draw
+      releaseRenderer();
+      renderer = null;
+    }
+    if (style.isIndicator()) {
+      touchInProgress = false;
+      starsTouchSpace = null;
+    } else if (previousStyle.isIndicator()) {
+      updateStarsTouchSpace();
+    }
+    rating = Math.min(rating, style.getNumberOfStars());
+    if (!style.hasSameLayout(previousStyle)) {
+      // force re-calculating the layout dimension
+      requestStarsLayout();
+    } else if (!style.hasSameStarShape(previousStyle) && starsDrawingSpace != null) {
+      // star outline and border margin of renderer buffers changed
+      layoutStars();
+    }
+    if (renderer != null) {
+      renderer.invalidateStars();
+    }
+    // request redraw of the view
+    invalidate();
+  }
+
   public float getRating(){
     return rating;
   }
@@ -727,19 +1127,35 @@ public class SimpleRatingBar extends View {
    * Sets rating.
    * If provided value is less than 0, rating will be set to 0.
    * * If provided value is greater than numberOfStars, rating will be set to numberOfStars.
+   * If rating doesn't change, nothing is redrawn and the listener is not notified.
    * @param rating
    */
   public void setRating(float rating) {
-    this.rating = normalizeRating(rating);
-    // request redraw of the view
-    invalidate();
-    if (ratingListener != null && (ratingAnimator == null || !ratingAnimator.isRunning())) {
-      ratingListener.onRatingChanged(this, rating, false);
-    }
+    setRating(rating, true);
+  }
+
+  /**
+   * Sets rating, optionally without notifying OnRatingBarChangeListener.
+   * Useful when the rating comes from the same model the listener would update.
+   * @param rating
+   * @param notifyListener
+   */
+  public void setRating(float rating, boolean notifyListener) {
+    applyEdit(style, true, rating, notifyListener);
+  }
+
+  /**
+   * Shows the given style and rating, as when binding the bar to an item of an adapter.
+   * Only what differs from the current state is laid out and redrawn, and the listener is not notified.
+   * @param style
+   * @param rating
+   */
+  public void bind(RatingBarStyle style, float rating) {
+    applyEdit(style, true, rating, false);
   }
 
   public float getStepSize() {
-    return stepSize;
+    return style.getStepSize();
   }
 
   /**
@@ -748,16 +1164,29 @@ public class SimpleRatingBar extends View {
    * @param stepSize
    */
   public void setStepSize(float stepSize) {
-    this.stepSize = stepSize;
-    if (stepSize <= 0) {
-      throw new IllegalArgumentException(String.format("SimpleRatingBar initialized with invalid value for stepSize. Found %f, but should be greater than 0", stepSize));
+    if (Float.compare(stepSize, style.getStepSize()) == 0) {
+      return;
     }
-    // request redraw of the view
-    invalidate();
+    setStyle(style.buildUpon().setStepSize(stepSize).build());
   }
 
   public boolean isIndicator() {
-    return isIndicator;
+    return style.isIndicator();
+  }
+
+  public boolean isFixedLayout() {
+    return fixedLayout;
+  }
+
+  /**
+   * Sets fixedLayout property.
+   * If provided value is true, changes of star size, separation or number of stars that leave the size of the bar
+   * unchanged for its last measure specs don't request a layout pass, so parents are not laid out again.
+   * Only use it if the parent measures the bar with the same specs on every pass.
+   * @param fixedLayout
+   */
+  public void setFixedLayout(boolean fixedLayout) {
+    this.fixedLayout = fixedLayout;
   }
 
   /**
@@ -766,8 +1195,10 @@ public class SimpleRatingBar extends View {
    * @param indicator
    */
   public void setIndicator(boolean indicator) {
-    isIndicator = indicator;
-    touchInProgress = false;
+    if (indicator == style.isIndicator()) {
+      return;
+    }
+    setStyle(style.buildUpon().setIndicator(indicator).build());
   }
 
   /**
@@ -775,7 +1206,7 @@ public class SimpleRatingBar extends View {
    * @return
    */
   public float getMaxStarSize() {
-    return maxStarSize;
+    return style.getMaxStarSize();
   }
 
   /**
@@ -784,7 +1215,7 @@ public class SimpleRatingBar extends View {
    * @return
    */
   public float getMaxStarSize(@Dimension int dimen) {
-    return valueFromPixels(maxStarSize, dimen);
+    return valueFromPixels(getMaxStarSize(), dimen);
   }
 
   /**
@@ -793,14 +1224,10 @@ public class SimpleRatingBar extends View {
    * @param maxStarSize
    */
   public void setMaxStarSize(float maxStarSize) {
-    this.maxStarSize = maxStarSize;
-    if (currentStarSize > maxStarSize) {
-      // force re-calculating the layout dimension
-      requestLayout();
-      generateInternalCanvas(getWidth(), getHeight());
-      // request redraw of the view
-      invalidate();
+    if (Float.compare(maxStarSize, style.getMaxStarSize()) == 0) {
+      return;
     }
+    setStyle(style.buildUpon().setMaxStarSize(maxStarSize).build());
   }
 
   /**
@@ -829,20 +1256,23 @@ public class SimpleRatingBar extends View {
     return valueFromPixels(currentStarSize, dimen);
   }
 
+  /**
+   * Returns the star size set by the user, or Integer.MAX_VALUE if stars take the largest size that fits.
+   * @return
+   */
+  private float getDesiredStarSize() {
+    return animatedGeometry != null ? animatedGeometry[0] : style.getStarSize();
+  }
+
   /**
    * Sets exact star size in pixels.
    * @param starSize
    */
   public void setStarSize(float starSize) {
-    this.desiredStarSize = starSize;
-    if (starSize != Integer.MAX_VALUE && maxStarSize != Integer.MAX_VALUE && starSize > maxStarSize) {
-      Log.w("SimpleRatingBar", String.format("Initialized with conflicting values: starSize is greater than maxStarSize (%f > %f). I will ignore maxStarSize", starSize, maxStarSize));
+    if (Float.compare(starSize, style.getStarSize()) == 0) {
+      return;
     }
-    // force re-calculating the layout dimension
-    requestLayout();
-    generateInternalCanvas(getWidth(), getHeight());
-    // request redraw of the view
-    invalidate();
+    setStyle(style.buildUpon().setStarSize(starSize).build());
   }
 
   /**
@@ -859,7 +1289,7 @@ public class SimpleRatingBar extends View {
    * @return
    */
   public float getStarsSeparation() {
-    return starsSeparation;
+    return animatedGeometry != null ? animatedGeometry[1] : style.getStarsSeparation();
   }
 
   /**
@@ -868,7 +1298,7 @@ public class SimpleRatingBar extends View {
    * @return
    */
   public float getStarsSeparation(@Dimension int dimen) {
-    return valueFromPixels(starsSeparation, dimen);
+    return valueFromPixels(getStarsSeparation(), dimen);
   }
 
   /**
@@ -876,12 +1306,10 @@ public class SimpleRatingBar extends View {
    * @param starsSeparation
    */
   public void setStarsSeparation(float starsSeparation) {
-    this.starsSeparation = starsSeparation;
-    // force re-calculating the layout dimension
-    requestLayout();
-    generateInternalCanvas(getWidth(), getHeight());
-    // request redraw of the view
-    invalidate();
+    if (Float.compare(starsSeparation, style.getStarsSeparation()) == 0) {
+      return;
+    }
+    setStyle(style.buildUpon().setStarsSeparation(starsSeparation).build());
   }
 
   /**
@@ -893,7 +1321,7 @@ public class SimpleRatingBar extends View {
   }
 
   public int getNumberOfStars() {
-    return numberOfStars;
+    return style.getNumberOfStars();
   }
 
   /**
@@ -903,16 +1331,9 @@ public class SimpleRatingBar extends View {
    * @param numberOfStars
    */
   public void setNumberOfStars(int numberOfStars) {
-    this.numberOfStars = numberOfStars;
-    if (numberOfStars <= 0) {
-      throw new IllegalArgumentException(String.format("SimpleRatingBar initialized with invalid value for numberOfStars. Found %d, but should be greater than 0", numberOfStars));
-    }
-    this.rating = 0;
-    // force re-calculating the layout dimension
-    requestLayout();
-    generateInternalCanvas(getWidth(), getHeight());
-    // request redraw of the view
-    invalidate();
+    RatingBarStyle newStyle = numberOfStars == style.getNumberOfStars() ? style
+        : style.buildUpon().setNumberOfStars(numberOfStars).build();
+    applyEdit(newStyle, true, 0, false);
   }
 
   /**
@@ -920,7 +1341,7 @@ public class SimpleRatingBar extends View {
    * @return
    */
   public float getStarBorderWidth() {
-    return starBorderWidth;
+    return animatedGeometry != null ? animatedGeometry[2] : style.getStarBorderWidth();
   }
 
   /**
@@ -929,7 +1350,7 @@ public class SimpleRatingBar extends View {
    * @return
    */
   public float getStarBorderWidth(@Dimension int dimen) {
-    return valueFromPixels(starBorderWidth, dimen);
+    return valueFromPixels(getStarBorderWidth(), dimen);
   }
 
   /**
@@ -938,14 +1359,10 @@ public class SimpleRatingBar extends View {
    * @param starBorderWidth
    */
   public void setStarBorderWidth(float starBorderWidth) {
-    this.starBorderWidth = starBorderWidth;
-    if (starBorderWidth <= 0) {
-      throw new IllegalArgumentException(String.format("SimpleRatingBar initialized with invalid value for starBorderWidth. Found %f, but should be greater than 0",
-          starBorderWidth));
+    if (Float.compare(starBorderWidth, style.getStarBorderWidth()) == 0) {
+      return;
     }
-    paintStarBorder.setStrokeWidth(starBorderWidth);
-    // request redraw of the view
-    invalidate();
+    setStyle(style.buildUpon().setStarBorderWidth(starBorderWidth).build());
   }
 
   /**
@@ -963,7 +1380,7 @@ public class SimpleRatingBar extends View {
    * @return
    */
   public float getStarCornerRadius() {
-    return starCornerRadius;
+    return animatedGeometry != null ? animatedGeometry[3] : style.getStarCornerRadius();
   }
 
   /**
@@ -972,7 +1389,7 @@ public class SimpleRatingBar extends View {
    * @return
    */
   public float getStarCornerRadius(@Dimension int dimen) {
-    return valueFromPixels(starCornerRadius, dimen);
+    return valueFromPixels(getStarCornerRadius(), dimen);
   }
 
   /**
@@ -981,16 +1398,10 @@ public class SimpleRatingBar extends View {
    * @param starCornerRadius
      */
   public void setStarCornerRadius(float starCornerRadius) {
-    this.starCornerRadius = starCornerRadius;
-    if (starCornerRadius < 0) {
-      throw new IllegalArgumentException(String.format("SimpleRatingBar initialized with invalid value for starCornerRadius. Found %f, but should be greater or equal than 0",
-              starCornerRadius));
-    }
-    cornerPathEffect = new CornerPathEffect(starCornerRadius);
-    paintStarBorder.setPathEffect(cornerPathEffect);
-    paintStarOutline.setPathEffect(cornerPathEffect);
-    // request redraw of the view
-    invalidate();
+    if (Float.compare(starCornerRadius, style.getStarCornerRadius()) == 0) {
+      return;
+    }
+    setStyle(style.buildUpon().setStarCornerRadius(starCornerRadius).build());
   }
 
   /**
@@ -1004,7 +1415,7 @@ public class SimpleRatingBar extends View {
   }
 
   public @ColorInt int getBorderColor() {
-    return borderColor;
+    return animatedColors != null ? animatedColors[0] : style.getBorderColor();
   }
 
   /**
@@ -1012,13 +1423,14 @@ public class SimpleRatingBar extends View {
    * @param borderColor
    */
   public void setBorderColor(@ColorInt int borderColor) {
-    this.borderColor = borderColor;
-    // request redraw of the view
-    invalidate();
+    if (borderColor == style.getBorderColor()) {
+      return;
+    }
+    setStyle(style.buildUpon().setBorderColor(borderColor).build());
   }
 
   public @ColorInt int getFillColor() {
-    return fillColor;
+    return animatedColors != null ? animatedColors[1] : style.getFillColor();
   }
 
   /**
@@ -1026,13 +1438,14 @@ public class SimpleRatingBar extends View {
    * @param fillColor
    */
   public void setFillColor(@ColorInt int fillColor) {
-    this.fillColor = fillColor;
-    // request redraw of the view
-    invalidate();
+    if (fillColor == style.getFillColor()) {
+      return;
+    }
+    setStyle(style.buildUpon().setFillColor(fillColor).build());
   }
 
   public @ColorInt int getStarBackgroundColor() {
-    return starBackgroundColor;
+    return animatedColors != null ? animatedColors[2] : style.getStarBackgroundColor();
   }
 
   /**
@@ -1040,13 +1453,14 @@ public class SimpleRatingBar extends View {
    * @param starBackgroundColor
    */
   public void setStarBackgroundColor(@ColorInt int starBackgroundColor) {
-    this.starBackgroundColor = starBackgroundColor;
-    // request redraw of the view
-    invalidate();
+    if (starBackgroundColor == style.getStarBackgroundColor()) {
+      return;
+    }
+    setStyle(style.buildUpon().setStarBackgroundColor(starBackgroundColor).build());
   }
 
   public @ColorInt int getPressedBorderColor() {
-    return pressedBorderColor;
+    return animatedColors != null ? animatedColors[4] : style.getPressedBorderColor();
   }
 
   /**
@@ -1054,13 +1468,14 @@ public class SimpleRatingBar extends View {
    * @param pressedBorderColor
    */
   public void setPressedBorderColor(@ColorInt int pressedBorderColor) {
-    this.pressedBorderColor = pressedBorderColor;
-    // request redraw of the view
-    invalidate();
+    if (pressedBorderColor == style.getPressedBorderColor()) {
+      return;
+    }
+    setStyle(style.buildUpon().setPressedBorderColor(pressedBorderColor).build());
   }
 
   public @ColorInt int getPressedFillColor() {
-    return pressedFillColor;
+    return animatedColors != null ? animatedColors[5] : style.getPressedFillColor();
   }
 
   /**
@@ -1068,13 +1483,14 @@ public class SimpleRatingBar extends View {
    * @param pressedFillColor
    */
   public void setPressedFillColor(@ColorInt int pressedFillColor) {
-    this.pressedFillColor = pressedFillColor;
-    // request redraw of the view
-    invalidate();
+    if (pressedFillColor == style.getPressedFillColor()) {
+      return;
+    }
+    setStyle(style.buildUpon().setPressedFillColor(pressedFillColor).build());
   }
 
   public @ColorInt int getPressedStarBackgroundColor() {
-    return pressedStarBackgroundColor;
+    return animatedColors != null ? animatedColors[6] : style.getPressedStarBackgroundColor();
   }
 
   /**
@@ -1082,13 +1498,14 @@ public class SimpleRatingBar extends View {
    * @param pressedStarBackgroundColor
    */
   public void setPressedStarBackgroundColor(@ColorInt int pressedStarBackgroundColor) {
-    this.pressedStarBackgroundColor = pressedStarBackgroundColor;
-    // request redraw of the view
-    invalidate();
+    if (pressedStarBackgroundColor == style.getPressedStarBackgroundColor()) {
+      return;
+    }
+    setStyle(style.buildUpon().setPressedStarBackgroundColor(pressedStarBackgroundColor).build());
   }
 
   public Gravity getGravity() {
-    return gravity;
+    return style.getGravity();
   }
 
   /**
@@ -1096,13 +1513,14 @@ public class SimpleRatingBar extends View {
    * @param gravity
    */
   public void setGravity(Gravity gravity) {
-    this.gravity = gravity;
-    // request redraw of the view
-    invalidate();
+    if (gravity == style.getGravity()) {
+      return;
+    }
+    setStyle(style.buildUpon().setGravity(gravity).build());
   }
 
   public boolean isDrawBorderEnabled() {
-    return drawBorderEnabled;
+    return style.isDrawBorderEnabled();
   }
 
   /**
@@ -1111,9 +1529,30 @@ public class SimpleRatingBar extends View {
    * @param drawBorderEnabled
    */
   public void setDrawBorderEnabled(boolean drawBorderEnabled) {
-    this.drawBorderEnabled = drawBorderEnabled;
-    // request redraw of the view
-    invalidate();
+    if (drawBorderEnabled == style.isDrawBorderEnabled()) {
+      return;
+    }
+    setStyle(style.buildUpon().setDrawBorderEnabled(drawBorderEnabled).build());
+  }
+
+  /**
+   * Returns the render mode set, which falls back to Software if the device doesn't support it.
+   * @return
+   */
+  public RenderMode getRenderMode() {
+    return style.getRenderMode();
+  }
+
+  /**
+   * Sets the technique used to draw the stars.
+   * If the device doesn't support it, stars will be drawn using Software render mode.
+   * @param renderMode
+   */
+  public void setRenderMode(RenderMode renderMode) {
+    if (renderMode == style.getRenderMode()) {
+      return;
+    }
+    setStyle(style.buildUpon().setRenderMode(renderMode).build());
   }
 
   /**
@@ -1151,22 +1590,93 @@ public class SimpleRatingBar extends View {
   }
 
   /**
-   * Sets rating with animation.
+   * Sets rating and the other properties targeted by the builder with animation.
+   * Animated values are assigned directly on each frame, so the bar is laid out and redrawn at most once per frame,
+   * and the internal bitmap is reconfigured in place instead of re-allocated.
    * @param builder
    */
-  private void animateRating(AnimationBuilder builder) {
-    builder.ratingTarget = normalizeRating(builder.ratingTarget);
-    ratingAnimator = ValueAnimator.ofFloat(0, builder.ratingTarget);
+  private void animateProperties(final AnimationBuilder builder) {
+    if (ratingAnimator != null) {
+      // the running animation shares the animated values, so it's finished before they are captured again
+      ratingAnimator.cancel();
+    }
+    final boolean animatesRating = builder.ratingTargetSet || !builder.hasPropertyTargets();
+    final float ratingTarget = normalizeRating(builder.ratingTarget);
+
+    // before the first layout there is no current star size, so it's taken from the style
+    float fromStarSize = starsDrawingSpace != null ? currentStarSize : getDesiredStarSize();
+    if (fromStarSize == Integer.MAX_VALUE) {
+      // stars are fitted to a view that isn't laid out yet, so there is nothing to animate the size from
+      fromStarSize = valueOrDefault(builder.starSizeTarget, fromStarSize);
+    }
+    // starSize, starsSeparation, starBorderWidth, starCornerRadius
+    final float[] fromGeometry = { fromStarSize, getStarsSeparation(), getStarBorderWidth(), getStarCornerRadius() };
+    final float[] toGeometry = {
+        valueOrDefault(builder.starSizeTarget, fromStarSize),
+        valueOrDefault(builder.starsSeparationTarget, getStarsSeparation()),
+        valueOrDefault(builder.starBorderWidthTarget, getStarBorderWidth()),
+        valueOrDefault(builder.starCornerRadiusTarget, getStarCornerRadius())
+    };
+    final boolean animatesGeometry = !Arrays.equals(fromGeometry, toGeometry);
+
+    // borderColor, fillColor, starBackgroundColor, backgroundColor and their pressed versions
+    final int[] fromColors = { getBorderColor(), getFillColor(), getStarBackgroundColor(), getBarBackgroundColor(false),
+        getPressedBorderColor(), getPressedFillColor(), getPressedStarBackgroundColor(), getBarBackgroundColor(true) };
+    final int[] toColors = {
+        valueOrDefault(builder.borderColorTarget, fromColors[0]),
+        valueOrDefault(builder.fillColorTarget, fromColors[1]),
+        valueOrDefault(builder.starBackgroundColorTarget, fromColors[2]),
+        valueOrDefault(builder.backgroundColorTarget, fromColors[3]),
+        valueOrDefault(builder.pressedBorderColorTarget, fromColors[4]),
+        valueOrDefault(builder.pressedFillColorTarget, fromColors[5]),
+        valueOrDefault(builder.pressedStarBackgroundColorTarget, fromColors[6]),
+        valueOrDefault(builder.pressedBackgroundColorTarget, fromColors[7])
+    };
+    final boolean animatesColors = !Arrays.equals(fromColors, toColors);
+
+    // animated values override the style on each frame, and are applied to it when the animation ends
+    if (animatesColors) {
+      animatedColors = fromColors.clone();
+    }
+    if (animatesGeometry) {
+      animatedGeometry = new float[] { getDesiredStarSize(), fromGeometry[1], fromGeometry[2], fromGeometry[3] };
+    }
+
+    ratingAnimator = ValueAnimator.ofFloat(0, 1);
     ratingAnimator.setDuration(builder.duration);
     ratingAnimator.setRepeatCount(builder.repeatCount);
     ratingAnimator.setRepeatMode(builder.repeatMode);
+    animatingRating = animatesRating;
+    animatingGeometry = animatesGeometry;
 
     // Callback that executes on animation steps.
     ratingAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
       @Override
       public void onAnimationUpdate(ValueAnimator animation) {
-        float value = ((Float) (animation.getAnimatedValue())).floatValue();
-        setRating(value);
+        float fraction = animation.getAnimatedFraction();
+        if (animatesRating) {
+          setRating(ratingTarget * fraction);
+        }
+        if (animatesColors && animatedColors != null) {
+          for (int i = 0; i < animatedColors.length; i++) {
+            animatedColors[i] = evaluateColor(fraction, fromColors[i], toColors[i]);
+          }
+          if (renderer != null) {
+            renderer.invalidateStars();
+          }
+          invalidate();
+        }
+        if (animatesGeometry && animatedGeometry != null) {
+          if (builder.starSizeTarget != null) {
+            animatedGeometry[0] = Math.max(0, evaluateFloat(fraction, fromGeometry[0], toGeometry[0]));
+          }
+          animatedGeometry[1] = Math.max(0, evaluateFloat(fraction, fromGeometry[1], toGeometry[1]));
+          animatedGeometry[2] = Math.max(Float.MIN_VALUE, evaluateFloat(fraction, fromGeometry[2], toGeometry[2]));
+          animatedGeometry[3] = Math.max(0, evaluateFloat(fraction, fromGeometry[3], toGeometry[3]));
+          // only the stars are laid out again on each frame, the parents only when the bar changes its size
+          requestStarsLayout(true);
+          invalidate();
+        }
       }
     });
 
@@ -1184,21 +1694,21 @@ public class SimpleRatingBar extends View {
 
       @Override
       public void onAnimationEnd(Animator animator) {
-        if (ratingListener != null) {
+        animatingGeometry = false;
+        applyAnimatedValues();
+        if (animatesRating && ratingListener != null) {
           ratingListener.onRatingChanged(SimpleRatingBar.this, rating, false);
         }
       }
 
       @Override
       public void onAnimationCancel(Animator animator) {
-        if (ratingListener != null) {
-          ratingListener.onRatingChanged(SimpleRatingBar.this, rating, false);
-        }
+        // onAnimationEnd follows, and applies the values reached so far
       }
 
       @Override
       public void onAnimationRepeat(Animator animator) {
-        if (ratingListener != null) {
+        if (animatesRating && ratingListener != null) {
           ratingListener.onRatingChanged(SimpleRatingBar.this, rating, false);
         }
       }
@@ -1206,6 +1716,87 @@ public class SimpleRatingBar extends View {
     ratingAnimator.start();
   }
 
+  /**
+   * Applies the last values of the animation to the style, so they stay once the animation is over.
+   */
+  private void applyAnimatedValues() {
+    if (animatedColors == null && animatedGeometry == null) {
+      return;
+    }
+    RatingBarStyle.Builder builder = style.buildUpon();
+    if (animatedColors != null) {
+      builder.setBorderColor(animatedColors[0])
+          .setFillColor(animatedColors[1])
+          .setStarBackgroundColor(animatedColors[2])
+          .setBackgroundColor(animatedColors[3])
+          .setPressedBorderColor(animatedColors[4])
+          .setPressedFillColor(animatedColors[5])
+          .setPressedStarBackgroundColor(animatedColors[6])
+          .setPressedBackgroundColor(animatedColors[7]);
+    }
+    boolean hadAnimatedGeometry = animatedGeometry != null;
+    if (animatedGeometry != null) {
+      builder.setStarSize(animatedGeometry[0])
+          .setStarsSeparation(animatedGeometry[1])
+          .setStarBorderWidth(animatedGeometry[2])
+          .setStarCornerRadius(animatedGeometry[3]);
+    }
+    animatedColors = null;
+    animatedGeometry = null;
+    RatingBarStyle previousStyle = style;
+    setStyle(builder.build());
+    if (hadAnimatedGeometry && style == previousStyle && starsDrawingSpace != null) {
+      // geometry is calculated again from the style
+      layoutStars();
+    }
+  }
+
+  /**
+   * Returns the background color of the bar in the given state.
+   * @param pressed
+   * @return
+   */
+  private @ColorInt int getBarBackgroundColor(boolean pressed) {
+    if (animatedColors != null) {
+      return pressed ? animatedColors[7] : animatedColors[3];
+    }
+    return pressed ? style.getPressedBackgroundColor() : style.getBackgroundColor();
+  }
+
+  private static float valueOrDefault(Float value, float defaultValue) {
+    return value != null ? value : defaultValue;
+  }
+
+  private static int valueOrDefault(Integer value, int defaultValue) {
+    return value != null ? value : defaultValue;
+  }
+
+  private static float evaluateFloat(float fraction, float startValue, float endValue) {
+    return startValue + fraction * (endValue - startValue);
+  }
+
+  /**
+   * Interpolates each ARGB channel separately, without allocating (unlike ArgbEvaluator).
+   * @param fraction
+   * @param startColor
+   * @param endColor
+   * @return
+   */
+  private static @ColorInt int evaluateColor(float fraction, @ColorInt int startColor, @ColorInt int endColor) {
+    if (startColor == endColor) {
+      return startColor;
+    }
+    return Color.argb(
+        evaluateChannel(fraction, Color.alpha(startColor), Color.alpha(endColor)),
+        evaluateChannel(fraction, Color.red(startColor), Color.red(endColor)),
+        evaluateChannel(fraction, Color.green(startColor), Color.green(endColor)),
+        evaluateChannel(fraction, Color.blue(startColor), Color.blue(endColor)));
+  }
+
+  private static int evaluateChannel(float fraction, int startValue, int endValue) {
+    return Math.min(255, Math.max(0, Math.round(startValue + fraction * (endValue - startValue))));
+  }
+
   /**
    * Returns a new AnimationBuilder.
    * @return
@@ -1214,6 +1805,40 @@ public class SimpleRatingBar extends View {
     return new AnimationBuilder(this);
   }
 
+  /**
+   * Returns a new Editor, to change several properties with a single layout and redraw.
+   * @return
+   */
+  public Editor edit() {
+    return new Editor(this);
+  }
+
+  /**
+   * Applies a style and a rating, laying out and redrawing only what changed.
+   * @param style
+   * @param ratingSet whether the rating has to change
+   * @param rating
+   * @param notifyListener whether OnRatingBarChangeListener is notified if the rating changes
+   */
+  private void applyEdit(RatingBarStyle style, boolean ratingSet, float rating, boolean notifyListener) {
+    float previousRating = this.rating;
+    RatingBarStyle previousStyle = this.style;
+    // setStyle lays out and redraws the bar, if needed, at most once
+    setStyle(style);
+    if (ratingSet) {
+      this.rating = normalizeRating(rating);
+    }
+    if (this.rating != previousRating) {
+      if (style == previousStyle) {
+        // request redraw of the stars whose fill changed
+        invalidateRatingChange(previousRating, this.rating);
+      }
+      if (notifyListener && ratingListener != null && (!animatingRating || !ratingAnimator.isRunning())) {
+        ratingListener.onRatingChanged(this, this.rating, false);
+      }
+    }
+  }
+
   /**
    * Normalizes rating passed by argument between 0 and numberOfStars.
    * @param rating
@@ -1223,9 +1848,9 @@ public class SimpleRatingBar extends View {
     if (rating < 0) {
       Log.w("SimpleRatingBar", String.format("Assigned rating is less than 0 (%f < 0), I will set it to exactly 0", rating));
       return 0;
-    } else if (rating > numberOfStars) {
-      Log.w("SimpleRatingBar", String.format("Assigned rating is greater than numberOfStars (%f > %d), I will set it to exactly numberOfStars", rating, numberOfStars));
-      return numberOfStars;
+    } else if (rating > getNumberOfStars()) {
+      Log.w("SimpleRatingBar", String.format("Assigned rating is greater than numberOfStars (%f > %d), I will set it to exactly numberOfStars", rating, getNumberOfStars()));
+      return getNumberOfStars();
     } else {
       return rating;
     }
@@ -1268,8 +1893,9 @@ public class SimpleRatingBar extends View {
 
   /**
    * Helper class to build rating animation.
+   * Besides rating, it can animate the geometry and colors of the bar.
    * Provides good defaults:
-   * - Target rating: numberOfStars
+   * - Target rating: numberOfStars, unless other properties are targeted
    * - Animation: Bounce
    * - Duration: 2s
    */
@@ -1278,6 +1904,19 @@ public class SimpleRatingBar extends View {
     private long duration;
     private Interpolator interpolator;
     private float ratingTarget;
+    private boolean ratingTargetSet;
+    private Float starSizeTarget;
+    private Float starsSeparationTarget;
+    private Float starBorderWidthTarget;
+    private Float starCornerRadiusTarget;
+    private Integer borderColorTarget;
+    private Integer fillColorTarget;
+    private Integer starBackgroundColorTarget;
+    private Integer backgroundColorTarget;
+    private Integer pressedBorderColorTarget;
+    private Integer pressedFillColorTarget;
+    private Integer pressedStarBackgroundColorTarget;
+    private Integer pressedBackgroundColorTarget;
     private int repeatCount;
     private int repeatMode;
     private AnimatorListener animatorListener;
@@ -1318,9 +1957,146 @@ public class SimpleRatingBar extends View {
      */
     public AnimationBuilder setRatingTarget(float ratingTarget) {
       this.ratingTarget = ratingTarget;
+      this.ratingTargetSet = true;
+      return this;
+    }
+
+    /**
+     * Sets star size in pixels after animation has ended.
+     * @param starSizeTarget
+     * @return
+     */
+    public AnimationBuilder setStarSizeTarget(float starSizeTarget) {
+      this.starSizeTarget = starSizeTarget;
+      return this;
+    }
+
+    /**
+     * Sets separation between stars in pixels after animation has ended.
+     * @param starsSeparationTarget
+     * @return
+     */
+    public AnimationBuilder setStarsSeparationTarget(float starsSeparationTarget) {
+      this.starsSeparationTarget = starsSeparationTarget;
+      return this;
+    }
+
+    /**
+     * Sets border width of stars in pixels after animation has ended.
+     * @param starBorderWidthTarget must be greater than zero
+     * @return
+     */
+    public AnimationBuilder setStarBorderWidthTarget(float starBorderWidthTarget) {
+      if (starBorderWidthTarget <= 0) {
+        throw new IllegalArgumentException(String.format("AnimationBuilder initialized with invalid value for starBorderWidthTarget. Found %f, but should be greater than 0",
+            starBorderWidthTarget));
+      }
+      this.starBorderWidthTarget = starBorderWidthTarget;
+      return this;
+    }
+
+    /**
+     * Sets radius of star corner in pixels after animation has ended.
+     * @param starCornerRadiusTarget must be greater or equal than zero
+     * @return
+     */
+    public AnimationBuilder setStarCornerRadiusTarget(float starCornerRadiusTarget) {
+      if (starCornerRadiusTarget < 0) {
+        throw new IllegalArgumentException(String.format("AnimationBuilder initialized with invalid value for starCornerRadiusTarget. Found %f, but should be greater or equal than 0",
+            starCornerRadiusTarget));
+      }
+      this.starCornerRadiusTarget = starCornerRadiusTarget;
+      return this;
+    }
+
+    /**
+     * Sets border color of stars in normal state after animation has ended.
+     * @param borderColorTarget
+     * @return
+     */
+    public AnimationBuilder setBorderColorTarget(@ColorInt int borderColorTarget) {
+      this.borderColorTarget = borderColorTarget;
+      return this;
+    }
+
+    /**
+     * Sets fill color of stars in normal state after animation has ended.
+     * @param fillColorTarget
+     * @return
+     */
+    public AnimationBuilder setFillColorTarget(@ColorInt int fillColorTarget) {
+      this.fillColorTarget = fillColorTarget;
+      return this;
+    }
+
+    /**
+     * Sets background color of stars in normal state after animation has ended.
+     * @param starBackgroundColorTarget
+     * @return
+     */
+    public AnimationBuilder setStarBackgroundColorTarget(@ColorInt int starBackgroundColorTarget) {
+      this.starBackgroundColorTarget = starBackgroundColorTarget;
+      return this;
+    }
+
+    /**
+     * Sets background color of rating bar in normal state after animation has ended.
+     * @param backgroundColorTarget
+     * @return
+     */
+    public AnimationBuilder setBackgroundColorTarget(@ColorInt int backgroundColorTarget) {
+      this.backgroundColorTarget = backgroundColorTarget;
+      return this;
+    }
+
+    /**
+     * Sets border color of stars in pressed state after animation has ended.
+     * @param pressedBorderColorTarget
+     * @return
+     */
+    public AnimationBuilder setPressedBorderColorTarget(@ColorInt int pressedBorderColorTarget) {
+      this.pressedBorderColorTarget = pressedBorderColorTarget;
+      return this;
+    }
+
+    /**
+     * Sets fill color of stars in pressed state after animation has ended.
+     * @param pressedFillColorTarget
+     * @return
+     */
+    public AnimationBuilder setPressedFillColorTarget(@ColorInt int pressedFillColorTarget) {
+      this.pressedFillColorTarget = pressedFillColorTarget;
+      return this;
+    }
+
+    /**
+     * Sets background color of stars in pressed state after animation has ended.
+     * @param pressedStarBackgroundColorTarget
+     * @return
+     */
+    public AnimationBuilder setPressedStarBackgroundColorTarget(@ColorInt int pressedStarBackgroundColorTarget) {
+      this.pressedStarBackgroundColorTarget = pressedStarBackgroundColorTarget;
+      return this;
+    }
+
+    /**
+     * Sets background color of rating bar in pressed state after animation has ended.
+     * @param pressedBackgroundColorTarget
+     * @return
+     */
+    public AnimationBuilder setPressedBackgroundColorTarget(@ColorInt int pressedBackgroundColorTarget) {
+      this.pressedBackgroundColorTarget = pressedBackgroundColorTarget;
       return this;
     }
 
+    private boolean hasPropertyTargets() {
+      return starSizeTarget != null || starsSeparationTarget != null || starBorderWidthTarget != null
+          || starCornerRadiusTarget != null || borderColorTarget != null || fillColorTarget != null
+          || starBackgroundColorTarget != null || backgroundColorTarget != null
+          || pressedBorderColorTarget != null || pressedFillColorTarget != null
+          || pressedStarBackgroundColorTarget != null || pressedBackgroundColorTarget != null;
+    }
+
     /**
      * Sets repeat count for animation.
      * @param repeatCount must be a positive value or ValueAnimator.INFINITE
@@ -1355,7 +2131,177 @@ public class SimpleRatingBar extends View {
      * Starts animation.
      */
     public void start() {
-      ratingBar.animateRating(this);
+      ratingBar.animateProperties(this);
+    }
+  }
+
+  /**
+   * Helper class to change several properties of the bar at once.
+   * Changes are collected until {@link #apply()}, which validates them once and then lays out,
+   * resizes renderer buffers and redraws the bar at most once.
+   * Sizes are in pixels, unless a dimension is given.
+   */
+  public class Editor {
+    private SimpleRatingBar ratingBar;
+    private RatingBarStyle.Builder styleBuilder;
+    private float rating;
+    private boolean ratingSet;
+    private boolean numberOfStarsSet;
+
+    private Editor(SimpleRatingBar ratingBar) {
+      this.ratingBar = ratingBar;
+      this.styleBuilder = ratingBar.style.buildUpon();
+    }
+
+    /**
+     * Sets rating, which is normalized between 0 and the new numberOfStars.
+     * @param rating
+     * @return
+     */
+    public Editor setRating(float rating) {
+      this.rating = rating;
+      this.ratingSet = true;
+      return this;
+    }
+
+    /**
+     * Sets number of stars. Unless a rating is also set, rating will be set to zero.
+     * @param numberOfStars
+     * @return
+     */
+    public Editor setNumberOfStars(int numberOfStars) {
+      styleBuilder.setNumberOfStars(numberOfStars);
+      numberOfStarsSet = true;
+      return this;
+    }
+
+    public Editor setStepSize(float stepSize) {
+      styleBuilder.setStepSize(stepSize);
+      return this;
+    }
+
+    public Editor setStarSize(float starSize) {
+      styleBuilder.setStarSize(starSize);
+      return this;
+    }
+
+    public Editor setStarSize(float starSize, @Dimension int dimen) {
+      return setStarSize(valueToPixels(starSize, dimen));
+    }
+
+    public Editor setMaxStarSize(float maxStarSize) {
+      styleBuilder.setMaxStarSize(maxStarSize);
+      return this;
+    }
+
+    public Editor setMaxStarSize(float maxStarSize, @Dimension int dimen) {
+      return setMaxStarSize(valueToPixels(maxStarSize, dimen));
+    }
+
+    public Editor setStarsSeparation(float starsSeparation) {
+      styleBuilder.setStarsSeparation(starsSeparation);
+      return this;
+    }
+
+    public Editor setStarsSeparation(float starsSeparation, @Dimension int dimen) {
+      return setStarsSeparation(valueToPixels(starsSeparation, dimen));
+    }
+
+    public Editor setStarBorderWidth(float starBorderWidth) {
+      styleBuilder.setStarBorderWidth(starBorderWidth);
+      return this;
+    }
+
+    public Editor setStarBorderWidth(float starBorderWidth, @Dimension int dimen) {
+      return setStarBorderWidth(valueToPixels(starBorderWidth, dimen));
+    }
+
+    public Editor setStarCornerRadius(float starCornerRadius) {
+      styleBuilder.setStarCornerRadius(starCornerRadius);
+      return this;
+    }
+
+    public Editor setStarCornerRadius(float starCornerRadius, @Dimension int dimen) {
+      return setStarCornerRadius(valueToPixels(starCornerRadius, dimen));
+    }
+
+    public Editor setBorderColor(@ColorInt int borderColor) {
+      styleBuilder.setBorderColor(borderColor);
+      return this;
+    }
+
+    public Editor setFillColor(@ColorInt int fillColor) {
+      styleBuilder.setFillColor(fillColor);
+      return this;
+    }
+
+    public Editor setStarBackgroundColor(@ColorInt int starBackgroundColor) {
+      styleBuilder.setStarBackgroundColor(starBackgroundColor);
+      return this;
+    }
+
+    /**
+     * Sets background color of the bar in normal state, as srb_backgroundColor does.
+     * @param backgroundColor
+     * @return
+     */
+    public Editor setBackgroundColor(@ColorInt int backgroundColor) {
+      styleBuilder.setBackgroundColor(backgroundColor);
+      return this;
+    }
+
+    public Editor setPressedBorderColor(@ColorInt int pressedBorderColor) {
+      styleBuilder.setPressedBorderColor(pressedBorderColor);
+      return this;
+    }
+
+    public Editor setPressedFillColor(@ColorInt int pressedFillColor) {
+      styleBuilder.setPressedFillColor(pressedFillColor);
+      return this;
+    }
+
+    public Editor setPressedStarBackgroundColor(@ColorInt int pressedStarBackgroundColor) {
+      styleBuilder.setPressedStarBackgroundColor(pressedStarBackgroundColor);
+      return this;
+    }
+
+    /**
+     * Sets background color of the bar in pressed state, as srb_pressedBackgroundColor does.
+     * @param pressedBackgroundColor
+     * @return
+     */
+    public Editor setPressedBackgroundColor(@ColorInt int pressedBackgroundColor) {
+      styleBuilder.setPressedBackgroundColor(pressedBackgroundColor);
+      return this;
+    }
+
+    public Editor setIndicator(boolean indicator) {
+      styleBuilder.setIndicator(indicator);
+      return this;
+    }
+
+    public Editor setGravity(Gravity gravity) {
+      styleBuilder.setGravity(gravity);
+      return this;
+    }
+
+    public Editor setDrawBorderEnabled(boolean drawBorderEnabled) {
+      styleBuilder.setDrawBorderEnabled(drawBorderEnabled);
+      return this;
+    }
+
+    public Editor setRenderMode(RenderMode renderMode) {
+      styleBuilder.setRenderMode(renderMode);
+      return this;
+    }
+
+    /**
+     * Validates and applies all the changes.
+     * Throws IllegalArgumentException if any value is invalid, in which case nothing is applied.
+     */
+    public void apply() {
+      // as in setNumberOfStars, changing the number of stars resets the rating
+      ratingBar.applyEdit(styleBuilder.build(), ratingSet || numberOfStarsSet, ratingSet ? rating : 0, true);
     }
   }
 }
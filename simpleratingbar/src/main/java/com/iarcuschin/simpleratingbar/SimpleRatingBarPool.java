@@ -0,0 +1,88 @@
+package com.iarcuschin.simpleratingbar;
+
+import android.content.Context;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+/**
+ * Pool of SimpleRatingBar instances created ahead of time, so screens that show lots of bars
+ * don't pay for their construction while being laid out.
+ * Bars are created on a background executor with {@link #prewarm(int, Executor)}, which is safe since
+ * construction of a bar does no work bound to the main thread, and handed out with {@link #obtain()}.
+ * Bars hold the context of the pool, so use the context of the screen they will be shown in
+ * and drop the pool along with it.
+ */
+public final class SimpleRatingBarPool {
+
+  private final Context context;
+  private final RatingBarStyle style;
+  private final ArrayDeque<SimpleRatingBar> bars = new ArrayDeque<>();
+
+  /**
+   * Creates an empty pool of bars with the given style.
+   * @param context
+   * @param style
+   */
+  public SimpleRatingBarPool(Context context, RatingBarStyle style) {
+    this.context = context;
+    this.style = style;
+  }
+
+  /**
+   * Creates the given amount of bars on the executor, and adds them to the pool as they are created.
+   * @param count must be greater than or equal to 0
+   * @param executor
+   */
+  public void prewarm(final int count, Executor executor) {
+    if (count < 0) {
+      throw new IllegalArgumentException(String.format("SimpleRatingBarPool prewarmed with invalid value for count. Found %d, but should be greater than or equal to 0", count));
+    }
+    executor.execute(new Runnable() {
+      @Override public void run() {
+        for (int i = 0; i < count; i++) {
+          SimpleRatingBar bar = new SimpleRatingBar(context, style);
+          synchronized (bars) {
+            bars.add(bar);
+          }
+        }
+      }
+    });
+  }
+
+  /**
+   * Returns a bar from the pool, or creates one on the calling thread if the pool is empty.
+   * Bars are handed out only once, and their rating is 0.
+   * @return
+   */
+  public SimpleRatingBar obtain() {
+    SimpleRatingBar bar;
+    synchronized (bars) {
+      bar = bars.poll();
+    }
+    return bar != null ? bar : new SimpleRatingBar(context, style);
+  }
+
+  /**
+   * Returns the amount of bars ready to be handed out.
+   * @return
+   */
+  public int size() {
+    synchronized (bars) {
+      return bars.size();
+    }
+  }
+
+  /**
+   * Drops all bars not handed out yet.
+   */
+  public void clear() {
+    synchronized (bars) {
+      bars.clear();
+    }
+  }
+
+  public RatingBarStyle getStyle() {
+    return style;
+  }
+}
@@ -0,0 +1,541 @@
+package com.iarcuschin.simpleratingbar;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.drawable.Drawable;
+import android.support.annotation.ColorInt;
+import android.support.annotation.StyleRes;
+import android.util.AttributeSet;
+import android.util.Log;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+
+import static android.util.TypedValue.COMPLEX_UNIT_DIP;
+import static android.util.TypedValue.applyDimension;
+
+/**
+ * Draws the stars of a read-only SimpleRatingBar without a View, so it can be shown by an ImageView,
+ * as a compound drawable of a TextView or as a background.
+ * It supports the same srb_ attributes as SimpleRatingBar, except the ones about user interaction
+ * (srb_isIndicator, srb_stepSize, srb_renderMode). Pressed colors are used when the drawable state is pressed.
+ * Stars are scaled to fit the bounds, which by default match the intrinsic size given by srb_starSize.
+ * Stars are drawn straight into the canvas, clipped at the rating position, so no bitmap is allocated.
+ */
+public class SimpleRatingDrawable extends Drawable {
+
+  // Configurable variables
+  private RatingBarStyle style;
+  private float rating;
+
+  // Internal variables
+  private final float defaultStarSize;
+  private float currentStarSize;
+  private int alpha = 0xFF;
+  private boolean pressed;
+  private final Paint paintStarFill;
+  private final Paint paintStarBorder;
+  private final Paint paintBackground;
+  // outline of a star at (0, 0), and of all the stars in canvas coordinates
+  private final Path starPath = new Path();
+  private final Path starsPath = new Path();
+  private final float[] starVertex = new float[StarShape.VERTEX_ARRAY_SIZE];
+  private final RectF starsDrawingSpace = new RectF();
+
+  /**
+   * Creates a drawable with default values. Used when inflated from XML, which is supported since Nougat:
+   * {@code <drawable class="com.iarcuschin.simpleratingbar.SimpleRatingDrawable" app:srb_rating="3" />}
+   */
+  public SimpleRatingDrawable() {
+    this(Resources.getSystem(), new RatingBarStyle.Builder(Resources.getSystem()).build());
+  }
+
+  /**
+   * Creates a drawable with default values.
+   * @param context
+   */
+  public SimpleRatingDrawable(Context context) {
+    this(context.getResources(), new RatingBarStyle.Builder(context).build());
+  }
+
+  /**
+   * Creates a drawable with the values of the srb_ attributes in the given style.
+   * @param context
+   * @param styleRes
+   */
+  public SimpleRatingDrawable(Context context, @StyleRes int styleRes) {
+    this(context.getResources(), RatingBarStyle.fromStyle(context, styleRes));
+  }
+
+  /**
+   * Creates a drawable with the given style.
+   * @param context
+   * @param style
+   */
+  public SimpleRatingDrawable(Context context, RatingBarStyle style) {
+    this(context.getResources(), style);
+  }
+
+  private SimpleRatingDrawable(Resources resources, RatingBarStyle style) {
+    this.style = style;
+    defaultStarSize = applyDimension(COMPLEX_UNIT_DIP, 30, resources.getDisplayMetrics());
+
+    paintStarFill = StarShape.createFillPaint();
+
+    paintStarBorder = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.DITHER_FLAG);
+    paintStarBorder.setStyle(Paint.Style.STROKE);
+    paintStarBorder.setStrokeJoin(Paint.Join.ROUND);
+    paintStarBorder.setStrokeCap(Paint.Cap.ROUND);
+
+    paintBackground = new Paint();
+  }
+
+  @Override
+  public void inflate(Resources r, XmlPullParser parser, AttributeSet attrs, Resources.Theme theme)
+      throws XmlPullParserException, IOException {
+    super.inflate(r, parser, attrs, theme);
+    TypedArray arr = theme != null ? theme.obtainStyledAttributes(attrs, R.styleable.SimpleRatingBar, 0, 0)
+        : r.obtainAttributes(attrs, R.styleable.SimpleRatingBar);
+    // resources of the app are available now, so defaults come from them
+    style = new RatingBarStyle.Builder(r.getColor(R.color.srb_golden_stars), r.getDisplayMetrics())
+        .readAttributes(arr).build();
+    rating = normalizeRating(arr.getFloat(R.styleable.SimpleRatingBar_srb_rating, rating));
+    arr.recycle();
+    layoutStars();
+  }
+
+  /**
+   * Returns the star size the intrinsic size is based on: srb_starSize, or 30dp if it's missing.
+   * @return
+   */
+  private float getIntrinsicStarSize() {
+    return style.getStarSize() != Integer.MAX_VALUE ? style.getStarSize() : defaultStarSize;
+  }
+
+  @Override public int getIntrinsicWidth() {
+    int numberOfStars = style.getNumberOfStars();
+    return Math.round(getIntrinsicStarSize() * numberOfStars + style.getStarsSeparation() * (numberOfStars - 1))
+        + 2 * getBorderMargin();
+  }
+
+  @Override public int getIntrinsicHeight() {
+    return Math.round(getIntrinsicStarSize()) + 2 * getBorderMargin();
+  }
+
+  @Override protected void onBoundsChange(Rect bounds) {
+    super.onBoundsChange(bounds);
+    layoutStars();
+  }
+
+  /**
+   * Calculates the largest star size fitting in the bounds, and builds the outline of the stars centered in them.
+   */
+  private void layoutStars() {
+    Rect bounds = getBounds();
+    int margin = getBorderMargin();
+    int numberOfStars = style.getNumberOfStars();
+    float starsSeparation = style.getStarsSeparation();
+    float width = bounds.width() - 2 * margin;
+    float height = bounds.height() - 2 * margin;
+    currentStarSize = Math.min((width - starsSeparation * (numberOfStars - 1)) / numberOfStars, height);
+    starsPath.rewind();
+    if (currentStarSize <= 0) {
+      // bounds are too small, nothing to draw
+      starsDrawingSpace.setEmpty();
+      return;
+    }
+
+    float totalStarsWidth = currentStarSize * numberOfStars + starsSeparation * (numberOfStars - 1);
+    float startingX = bounds.left + (bounds.width() - totalStarsWidth) / 2;
+    float startingY = bounds.top + (bounds.height() - currentStarSize) / 2;
+    starsDrawingSpace.set(startingX, startingY, startingX + totalStarsWidth, startingY + currentStarSize);
+
+    StarShape.buildStarPath(starPath, starVertex, currentStarSize, style.getStarCornerRadius());
+    for (int i = 0; i < numberOfStars; i++) {
+      starsPath.addPath(starPath, startingX + i * (starsSeparation + currentStarSize), startingY);
+    }
+  }
+
+  @Override public void draw(Canvas canvas) {
+    Rect bounds = getBounds();
+    if (bounds.isEmpty()) {
+      return;
+    }
+
+    // draw background color
+    int background = pressed ? style.getPressedBackgroundColor() : style.getBackgroundColor();
+    if (background != Color.TRANSPARENT) {
+      paintBackground.setColor(StarShape.modulateAlpha(background, alpha));
+      canvas.drawRect(bounds, paintBackground);
+    }
+    if (starsDrawingSpace.isEmpty()) {
+      return;
+    }
+
+    int fill = pressed ? style.getPressedFillColor() : style.getFillColor();
+    int starBackground = pressed ? style.getPressedStarBackgroundColor() : style.getStarBackgroundColor();
+    int fullStars = (int) rating;
+    float offset = fullStars * (currentStarSize + style.getStarsSeparation()) + (rating - fullStars) * currentStarSize;
+    float margin = getBorderMargin();
+    float left = starsDrawingSpace.left - margin;
+    float right = starsDrawingSpace.right + margin;
+    if (style.getGravity() == SimpleRatingBar.Gravity.Left) {
+      float fillPosition = starsDrawingSpace.left + offset;
+      drawStarsClipped(canvas, fill, left, fillPosition);
+      drawStarsClipped(canvas, starBackground, fillPosition, right);
+    } else {
+      float fillPosition = starsDrawingSpace.right - offset;
+      drawStarsClipped(canvas, starBackground, left, fillPosition);
+      drawStarsClipped(canvas, fill, fillPosition, right);
+    }
+
+    // draw stars border on top
+    if (style.isDrawBorderEnabled()) {
+      paintStarBorder.setStrokeWidth(style.getStarBorderWidth());
+      paintStarBorder.setColor(StarShape.modulateAlpha(pressed ? style.getPressedBorderColor() : style.getBorderColor(), alpha));
+      canvas.drawPath(starsPath, paintStarBorder);
+    }
+  }
+
+  /**
+   * Fills the stars with the given color, only between left and right.
+   * @param canvas
+   * @param color
+   * @param left
+   * @param right
+   */
+  private void drawStarsClipped(Canvas canvas, @ColorInt int color, float left, float right) {
+    if (right <= left) {
+      return;
+    }
+    float margin = getBorderMargin();
+    canvas.save();
+    canvas.clipRect(left, starsDrawingSpace.top - margin, right, starsDrawingSpace.bottom + margin);
+    StarShape.fillStars(canvas, starsPath, paintStarFill, color, alpha);
+    canvas.restore();
+  }
+
+  @Override public boolean isStateful() {
+    return true;
+  }
+
+  @Override protected boolean onStateChange(int[] state) {
+    boolean pressed = false;
+    for (int s : state) {
+      if (s == android.R.attr.state_pressed) {
+        pressed = true;
+        break;
+      }
+    }
+    if (pressed == this.pressed) {
+      return false;
+    }
+    this.pressed = pressed;
+    invalidateSelf();
+    return true;
+  }
+
+  @Override public void setAlpha(int alpha) {
+    this.alpha = alpha;
+    invalidateSelf();
+  }
+
+  @Override public int getAlpha() {
+    return alpha;
+  }
+
+  @Override public void setColorFilter(ColorFilter colorFilter) {
+    paintStarFill.setColorFilter(colorFilter);
+    paintStarBorder.setColorFilter(colorFilter);
+    paintBackground.setColorFilter(colorFilter);
+    invalidateSelf();
+  }
+
+  @Override public int getOpacity() {
+    return PixelFormat.TRANSLUCENT;
+  }
+
+  /**
+   * Returns the space needed around the stars, so the border and its antialiasing fit in.
+   * @return
+   */
+  private int getBorderMargin() {
+    return (int) Math.ceil(style.getStarBorderWidth() / 2) + 1;
+  }
+
+  /**
+   * Normalizes rating passed by argument between 0 and numberOfStars.
+   * @param rating
+   * @return
+   */
+  private float normalizeRating(float rating) {
+    if (rating < 0) {
+      Log.w("SimpleRatingBar", String.format("Assigned rating is less than 0 (%f < 0), I will set it to exactly 0", rating));
+      return 0;
+    } else if (rating > style.getNumberOfStars()) {
+      Log.w("SimpleRatingBar", String.format("Assigned rating is greater than numberOfStars (%f > %d), I will set it to exactly numberOfStars", rating, style.getNumberOfStars()));
+      return style.getNumberOfStars();
+    } else {
+      return rating;
+    }
+  }
+
+  /* ----------- GETTERS AND SETTERS ----------- */
+
+  public RatingBarStyle getStyle() {
+    return style;
+  }
+
+  /**
+   * Applies a style to the drawable. Rating is kept, but limited to the new numberOfStars.
+   * @param style
+   */
+  public void setStyle(RatingBarStyle style) {
+    if (style == this.style) {
+      // styles are interned, so there is nothing to update
+      return;
+    }
+    this.style = style;
+    rating = Math.min(rating, style.getNumberOfStars());
+    layoutStars();
+    invalidateSelf();
+  }
+
+  public float getRating() {
+    return rating;
+  }
+
+  /**
+   * Sets rating.
+   * If provided value is less than 0, rating will be set to 0.
+   * If provided value is greater than numberOfStars, rating will be set to numberOfStars.
+   * @param rating
+   */
+  public void setRating(float rating) {
+    float normalizedRating = normalizeRating(rating);
+    if (normalizedRating == this.rating) {
+      return;
+    }
+    this.rating = normalizedRating;
+    invalidateSelf();
+  }
+
+  public int getNumberOfStars() {
+    return style.getNumberOfStars();
+  }
+
+  /**
+   * Sets number of stars.
+   * It also sets the rating to zero.
+   * Throws IllegalArgumentException if provided value is less or equal than zero.
+   * @param numberOfStars
+   */
+  public void setNumberOfStars(int numberOfStars) {
+    RatingBarStyle previousStyle = this.style;
+    float previousRating = rating;
+    this.rating = 0;
+    // setStyle redraws the drawable if the style changed
+    setStyle(previousStyle.buildUpon().setNumberOfStars(numberOfStars).build());
+    if (style == previousStyle && previousRating != 0) {
+      invalidateSelf();
+    }
+  }
+
+  /**
+   * Returns intrinsic star size in pixels.
+   * @return
+   */
+  public float getStarSize() {
+    return getIntrinsicStarSize();
+  }
+
+  /**
+   * Sets intrinsic star size in pixels. Stars are scaled to fit the bounds of the drawable.
+   * @param starSize
+   */
+  public void setStarSize(float starSize) {
+    setStyle(style.buildUpon().setStarSize(starSize).build());
+  }
+
+  /**
+   * Returns stars separation in pixels.
+   * @return
+   */
+  public float getStarsSeparation() {
+    return style.getStarsSeparation();
+  }
+
+  /**
+   * Sets separation between stars in pixels.
+   * @param starsSeparation
+   */
+  public void setStarsSeparation(float starsSeparation) {
+    setStyle(style.buildUpon().setStarsSeparation(starsSeparation).build());
+  }
+
+  /**
+   * Returns star border width in pixels.
+   * @return
+   */
+  public float getStarBorderWidth() {
+    return style.getStarBorderWidth();
+  }
+
+  /**
+   * Sets border width of stars in pixels.
+   * Throws IllegalArgumentException if provided value is less or equal than zero.
+   * @param starBorderWidth
+   */
+  public void setStarBorderWidth(float starBorderWidth) {
+    setStyle(style.buildUpon().setStarBorderWidth(starBorderWidth).build());
+  }
+
+  /**
+   * Returns star corner radius in pixels.
+   * @return
+   */
+  public float getStarCornerRadius() {
+    return style.getStarCornerRadius();
+  }
+
+  /**
+   * Sets radius of star corner in pixels.
+   * Throws IllegalArgumentException if provided value is less than zero.
+   * @param starCornerRadius
+   */
+  public void setStarCornerRadius(float starCornerRadius) {
+    setStyle(style.buildUpon().setStarCornerRadius(starCornerRadius).build());
+  }
+
+  public @ColorInt int getBorderColor() {
+    return style.getBorderColor();
+  }
+
+  /**
+   * Sets border color of stars in normal state.
+   * @param borderColor
+   */
+  public void setBorderColor(@ColorInt int borderColor) {
+    setStyle(style.buildUpon().setBorderColor(borderColor).build());
+  }
+
+  public @ColorInt int getFillColor() {
+    return style.getFillColor();
+  }
+
+  /**
+   * Sets fill color of stars in normal state.
+   * @param fillColor
+   */
+  public void setFillColor(@ColorInt int fillColor) {
+    setStyle(style.buildUpon().setFillColor(fillColor).build());
+  }
+
+  public @ColorInt int getStarBackgroundColor() {
+    return style.getStarBackgroundColor();
+  }
+
+  /**
+   * Sets background color of stars in normal state.
+   * @param starBackgroundColor
+   */
+  public void setStarBackgroundColor(@ColorInt int starBackgroundColor) {
+    setStyle(style.buildUpon().setStarBackgroundColor(starBackgroundColor).build());
+  }
+
+  public @ColorInt int getBackgroundColor() {
+    return style.getBackgroundColor();
+  }
+
+  /**
+   * Sets background color of the drawable in normal state.
+   * @param backgroundColor
+   */
+  public void setBackgroundColor(@ColorInt int backgroundColor) {
+    setStyle(style.buildUpon().setBackgroundColor(backgroundColor).build());
+  }
+
+  public @ColorInt int getPressedBorderColor() {
+    return style.getPressedBorderColor();
+  }
+
+  /**
+   * Sets border color of stars in pressed state.
+   * @param pressedBorderColor
+   */
+  public void setPressedBorderColor(@ColorInt int pressedBorderColor) {
+    setStyle(style.buildUpon().setPressedBorderColor(pressedBorderColor).build());
+  }
+
+  public @ColorInt int getPressedFillColor() {
+    return style.getPressedFillColor();
+  }
+
+  /**
+   * Sets fill color of stars in pressed state.
+   * @param pressedFillColor
+   */
+  public void setPressedFillColor(@ColorInt int pressedFillColor) {
+    setStyle(style.buildUpon().setPressedFillColor(pressedFillColor).build());
+  }
+
+  public @ColorInt int getPressedStarBackgroundColor() {
+    return style.getPressedStarBackgroundColor();
+  }
+
+  /**
+   * Sets background color of stars in pressed state.
+   * @param pressedStarBackgroundColor
+   */
+  public void setPressedStarBackgroundColor(@ColorInt int pressedStarBackgroundColor) {
+    setStyle(style.buildUpon().setPressedStarBackgroundColor(pressedStarBackgroundColor).build());
+  }
+
+  public @ColorInt int getPressedBackgroundColor() {
+    return style.getPressedBackgroundColor();
+  }
+
+  /**
+   * Sets background color of the drawable in pressed state.
+   * @param pressedBackgroundColor
+   */
+  public void setPressedBackgroundColor(@ColorInt int pressedBackgroundColor) {
+    setStyle(style.buildUpon().setPressedBackgroundColor(pressedBackgroundColor).build());
+  }
+
+  public SimpleRatingBar.Gravity getGravity() {
+    return style.getGravity();
+  }
+
+  /**
+   * Sets gravity of fill.
+   * @param gravity
+   */
+  public void setGravity(SimpleRatingBar.Gravity gravity) {
+    setStyle(style.buildUpon().setGravity(gravity).build());
+  }
+
+  public boolean isDrawBorderEnabled() {
+    return style.isDrawBorderEnabled();
+  }
+
+  /**
+   * Sets drawBorder property.
+   * If provided value is true, border will be drawn, otherwise it will be omitted.
+   * @param drawBorderEnabled
+   */
+  public void setDrawBorderEnabled(boolean drawBorderEnabled) {
+    setStyle(style.buildUpon().setDrawBorderEnabled(drawBorderEnabled).build());
+  }
+}
@@ -0,0 +1,55 @@
+package com.iarcuschin.simpleratingbar;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.PorterDuff;
+import android.graphics.Rect;
+
+/**
+ * Renderer of {@link SimpleRatingBar.RenderMode#Software}: stars are rasterized into an ARGB internal bitmap,
+ * which is blitted into the view canvas. Between draws only the stars whose fill changed are rasterized again.
+ */
+class SoftwareRenderer extends BitmapRenderer {
+
+  private final Rect ratingChangeBounds = new Rect();
+  private float renderedRating;
+  private boolean renderedTouchInProgress;
+
+  SoftwareRenderer(SimpleRatingBar bar) {
+    super(bar);
+  }
+
+  @Override protected Bitmap.Config getBitmapConfig() {
+    return Bitmap.Config.ARGB_8888;
+  }
+
+  @Override public void draw(Canvas canvas) {
+    if (internalBitmap == null) {
+      // stars are outside the view bounds
+      return;
+    }
+
+    // draw stars, in view coordinates
+    float rating = bar.getRating();
+    boolean touchInProgress = bar.isTouchInProgress();
+    internalCanvas.save();
+    internalCanvas.translate(-internalBitmapBounds.left, -internalBitmapBounds.top);
+    if (internalBitmapDirty || touchInProgress != renderedTouchInProgress) {
+      // clean internal canvas
+      internalCanvas.drawColor(0, PorterDuff.Mode.CLEAR);
+      bar.drawStars(internalCanvas);
+    } else if (bar.calculateRatingChangeBounds(renderedRating, rating, ratingChangeBounds)) {
+      // only re-rasterize the stars whose fill changed
+      internalCanvas.clipRect(ratingChangeBounds);
+      internalCanvas.drawColor(0, PorterDuff.Mode.CLEAR);
+      bar.drawStars(internalCanvas);
+    }
+    internalCanvas.restore();
+    internalBitmapDirty = false;
+    renderedRating = rating;
+    renderedTouchInProgress = touchInProgress;
+
+    // draw internal bitmap to definite canvas
+    canvas.drawBitmap(internalBitmap, internalBitmapBounds.left, internalBitmapBounds.top, null);
+  }
+}
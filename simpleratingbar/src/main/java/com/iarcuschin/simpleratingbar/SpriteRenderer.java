@@ -0,0 +1,232 @@
+package com.iarcuschin.simpleratingbar;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.os.Build;
+
+/**
+ * Renderer of {@link SimpleRatingBar.RenderMode#Sprite}: stars are pre-rendered once into glyphs shared by all bars
+ * with the same style (see {@link StarGlyphCache}), and each draw only blits those glyphs.
+ * Glyphs already have transparency where needed, so there is no need for an internal bitmap.
+ * While colors or geometry are animated, or when a glyph doesn't fit in the cache, each frame would need new glyphs,
+ * so they are drawn on each draw into a pair of scratch glyphs borrowed from {@link BitmapPool} instead.
+ */
+class SpriteRenderer implements RatingBarRenderer {
+
+  private final SimpleRatingBar bar;
+  private final float density;
+  // glyphs looked up in StarGlyphCache on each draw
+  private final StarGlyphCache.Key glyphKey = new StarGlyphCache.Key();
+  private Bitmap glyphFull;
+  private Bitmap glyphEmpty;
+  // glyphs drawn on each draw when they can't be cached
+  private Bitmap scratchGlyphFull;
+  private Bitmap scratchGlyphEmpty;
+  private Canvas scratchCanvas;
+  private final Paint paintGlyph = new Paint(Paint.FILTER_BITMAP_FLAG | Paint.DITHER_FLAG);
+  private final Rect glyphSrc = new Rect();
+  private final RectF glyphDst = new RectF();
+
+  SpriteRenderer(SimpleRatingBar bar) {
+    this.bar = bar;
+    density = bar.getResources().getDisplayMetrics().density;
+  }
+
+  @Override public void prepare() {
+    // glyphs are looked up on each draw
+  }
+
+  @Override public void invalidateStars() {
+    // glyphs are looked up on each draw
+  }
+
+  @Override public void draw(Canvas canvas) {
+    if (bar.getStarsDrawingSpace() == null) {
+      // not laid out yet
+      return;
+    }
+    int glyphSize = getGlyphSize();
+    if (bar.isAnimatingStyle() || glyphSize * glyphSize * 4 > StarGlyphCache.getMaxSize()) {
+      scratchGlyphFull = drawScratchGlyph(scratchGlyphFull, glyphSize, true);
+      scratchGlyphEmpty = drawScratchGlyph(scratchGlyphEmpty, glyphSize, false);
+      glyphFull = scratchGlyphFull;
+      glyphEmpty = scratchGlyphEmpty;
+    } else {
+      releaseScratchGlyphs();
+      glyphFull = obtainGlyph(true);
+      glyphEmpty = obtainGlyph(false);
+    }
+    if (bar.getGravity() == SimpleRatingBar.Gravity.Left) {
+      drawFromLeftToRight(canvas);
+    } else {
+      drawFromRightToLeft(canvas);
+    }
+  }
+
+  @Override public void release() {
+    // glyphs are owned by the cache
+    glyphFull = null;
+    glyphEmpty = null;
+    releaseScratchGlyphs();
+  }
+
+  /**
+   * Returns the scratch glyphs to the pool.
+   */
+  private void releaseScratchGlyphs() {
+    if (scratchGlyphFull != null) {
+      scratchCanvas.setBitmap(null);
+      BitmapPool.release(scratchGlyphFull);
+      BitmapPool.release(scratchGlyphEmpty);
+      scratchGlyphFull = null;
+      scratchGlyphEmpty = null;
+    }
+  }
+
+  /**
+   * Draws the glyph for the current style and state into a scratch glyph, which is resized or replaced if needed.
+   * Paints of the bar must have their colors already set up.
+   * @param scratchGlyph current scratch glyph, or null
+   * @param glyphSize
+   * @param filled whether to draw the full or the empty star
+   * @return the scratch glyph holding the drawn star
+   */
+  private Bitmap drawScratchGlyph(Bitmap scratchGlyph, int glyphSize, boolean filled) {
+    boolean canReconfigure = Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT;
+    if (scratchGlyph == null || scratchGlyph.getWidth() != glyphSize || scratchGlyph.getHeight() != glyphSize) {
+      if (canReconfigure && scratchGlyph != null && scratchGlyph.getAllocationByteCount() >= glyphSize * glyphSize * 4) {
+        // the buffer only grows: if current allocation is big enough, it's reconfigured in place
+        scratchGlyph.reconfigure(glyphSize, glyphSize, Bitmap.Config.ARGB_8888);
+      } else {
+        BitmapPool.release(scratchGlyph);
+        if (canReconfigure && bar.isAnimatingGeometry()) {
+          // leave room to keep growing during the animation without allocating on each frame
+          scratchGlyph = BitmapPool.obtain(glyphSize + glyphSize / 4, glyphSize + glyphSize / 4, Bitmap.Config.ARGB_8888);
+          scratchGlyph.reconfigure(glyphSize, glyphSize, Bitmap.Config.ARGB_8888);
+        } else {
+          scratchGlyph = BitmapPool.obtain(glyphSize, glyphSize, Bitmap.Config.ARGB_8888);
+        }
+      }
+    }
+    if (scratchCanvas == null) {
+      scratchCanvas = new Canvas();
+    }
+    scratchGlyph.eraseColor(Color.TRANSPARENT);
+    scratchCanvas.setBitmap(scratchGlyph);
+    int margin = bar.getBorderMargin();
+    bar.drawStar(scratchCanvas, margin, margin, filled ? 1f : 0f, SimpleRatingBar.Gravity.Left);
+    return scratchGlyph;
+  }
+
+  /**
+   * Returns the side of a glyph: a star plus room for its border.
+   * @return
+   */
+  private int getGlyphSize() {
+    return (int) Math.ceil(bar.getStarSize()) + 2 * bar.getBorderMargin();
+  }
+
+  /**
+   * Draws the view from glyphs when gravity is Left
+   * @param canvas
+   */
+  private void drawFromLeftToRight(Canvas canvas) {
+    float remainingTotalRating = bar.getRating();
+    float startingX = bar.getStarsDrawingSpace().left;
+    float startingY = bar.getStarsDrawingSpace().top;
+    for (int i = 0; i < bar.getNumberOfStars(); i++) {
+      if (remainingTotalRating >= 1) {
+        drawStarFromGlyphs(canvas, startingX, startingY, 1f, SimpleRatingBar.Gravity.Left);
+        remainingTotalRating -= 1;
+      } else {
+        drawStarFromGlyphs(canvas, startingX, startingY, remainingTotalRating, SimpleRatingBar.Gravity.Left);
+        remainingTotalRating = 0;
+      }
+      startingX += bar.getStarsSeparation() + bar.getStarSize();
+    }
+  }
+
+  /**
+   * Draws the view from glyphs when gravity is Right
+   * @param canvas
+   */
+  private void drawFromRightToLeft(Canvas canvas) {
+    float remainingTotalRating = bar.getRating();
+    float startingX = bar.getStarsDrawingSpace().right - bar.getStarSize();
+    float startingY = bar.getStarsDrawingSpace().top;
+    for (int i = 0; i < bar.getNumberOfStars(); i++) {
+      if (remainingTotalRating >= 1) {
+        drawStarFromGlyphs(canvas, startingX, startingY, 1f, SimpleRatingBar.Gravity.Right);
+        remainingTotalRating -= 1;
+      } else {
+        drawStarFromGlyphs(canvas, startingX, startingY, remainingTotalRating, SimpleRatingBar.Gravity.Right);
+        remainingTotalRating = 0;
+      }
+      startingX -= bar.getStarsSeparation() + bar.getStarSize();
+    }
+  }
+
+  /**
+   * Draws a star in the provided canvas by blitting the full and empty glyphs.
+   * A partially filled star is made of a slice of each glyph.
+   * @param canvas
+   * @param x left of the star
+   * @param y top of the star
+   * @param filled between 0 and 1
+   * @param gravity Left or Right
+   */
+  private void drawStarFromGlyphs(Canvas canvas, float x, float y, float filled, SimpleRatingBar.Gravity gravity) {
+    int margin = bar.getBorderMargin();
+    int glyphSize = glyphFull.getWidth();
+    float left = x - margin;
+    float top = y - margin;
+
+    if (filled >= 1f) {
+      canvas.drawBitmap(glyphFull, left, top, paintGlyph);
+      return;
+    } else if (filled <= 0f) {
+      canvas.drawBitmap(glyphEmpty, left, top, paintGlyph);
+      return;
+    }
+
+    // column of the glyph in which the fill ends
+    boolean leftGravity = gravity == SimpleRatingBar.Gravity.Left;
+    int split = margin + Math.round(bar.getStarSize() * (leftGravity ? filled : 1 - filled));
+    Bitmap leftGlyph = leftGravity ? glyphFull : glyphEmpty;
+    Bitmap rightGlyph = leftGravity ? glyphEmpty : glyphFull;
+
+    glyphSrc.set(0, 0, split, glyphSize);
+    glyphDst.set(left, top, left + split, top + glyphSize);
+    canvas.drawBitmap(leftGlyph, glyphSrc, glyphDst, paintGlyph);
+
+    glyphSrc.set(split, 0, glyphSize, glyphSize);
+    glyphDst.set(left + split, top, left + glyphSize, top + glyphSize);
+    canvas.drawBitmap(rightGlyph, glyphSrc, glyphDst, paintGlyph);
+  }
+
+  /**
+   * Returns the glyph for the current style and state, rendering and caching it if needed.
+   * Paints of the bar must have their colors already set up.
+   * @param filled whether to return the full or the empty star
+   * @return
+   */
+  private Bitmap obtainGlyph(boolean filled) {
+    glyphKey.set(bar.getStarSize(), bar.getStarBorderWidth(), bar.getStarCornerRadius(), bar.isDrawBorderEnabled(),
+        bar.getCurrentBorderColor(), bar.getCurrentFillColor(), bar.getCurrentStarBackgroundColor(),
+        density, filled);
+    Bitmap glyph = StarGlyphCache.get(glyphKey);
+    if (glyph == null) {
+      int margin = bar.getBorderMargin();
+      int glyphSize = getGlyphSize();
+      glyph = Bitmap.createBitmap(glyphSize, glyphSize, Bitmap.Config.ARGB_8888);
+      glyph.eraseColor(Color.TRANSPARENT);
+      bar.drawStar(new Canvas(glyph), margin, margin, filled ? 1f : 0f, SimpleRatingBar.Gravity.Left);
+      StarGlyphCache.put(glyphKey, glyph);
+    }
+    return glyph;
+  }
+}
@@ -0,0 +1,209 @@
+package com.iarcuschin.simpleratingbar;
+
+import android.graphics.Bitmap;
+import android.support.annotation.ColorInt;
+import android.support.v4.util.LruCache;
+
+/**
+ * Process-wide LRU cache of star atlases, shared by all SimpleRatingBar instances using Atlas render mode.
+ * An atlas is a sprite sheet with every rating reachable with the bar's stepSize already drawn,
+ * in normal state and, unless the bar is an indicator, in pressed state, so bars with identical style draw a cell
+ * of the same bitmap.
+ * Since Oreo atlases are hardware bitmaps, which only live in graphics memory.
+ * The cache is bounded by a byte budget, which can be changed using {@link #setMaxSize(int)}.
+ * Atlases which don't fit in the budget are not created, and bars draw as in Software render mode.
+ */
+public final class StarAtlasCache {
+
+  private static final int DEFAULT_MAX_SIZE = 8 * 1024 * 1024;
+
+  private static final LruCache<Key, Bitmap> cache = new LruCache<Key, Bitmap>(DEFAULT_MAX_SIZE) {
+    @Override protected int sizeOf(Key key, Bitmap atlas) {
+      return atlas.getByteCount();
+    }
+  };
+
+  private StarAtlasCache() {
+  }
+
+  /**
+   * Sets the maximum amount of bytes the cached atlases can occupy.
+   * Least recently used atlases will be evicted if the new budget is exceeded.
+   * @param maxSize in bytes, must be greater than 0
+   */
+  public static void setMaxSize(int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException(String.format("StarAtlasCache initialized with invalid value for maxSize. Found %d, but should be greater than 0", maxSize));
+    }
+    cache.resize(maxSize);
+  }
+
+  /**
+   * Returns the maximum amount of bytes the cached atlases can occupy.
+   * @return
+   */
+  public static int getMaxSize() {
+    return cache.maxSize();
+  }
+
+  /**
+   * Returns the amount of bytes occupied by the cached atlases.
+   * @return
+   */
+  public static int getSize() {
+    return cache.size();
+  }
+
+  /**
+   * Evicts all cached atlases.
+   */
+  public static void clear() {
+    cache.evictAll();
+  }
+
+  /**
+   * Evicts least recently used atlases until the cache occupies no more than the given size.
+   * @param size in bytes
+   */
+  static void trimToSize(int size) {
+    cache.trimToSize(size);
+  }
+
+  /**
+   * Returns the atlas associated to the key, or null if it's not cached.
+   * @param key
+   * @return
+   */
+  static Bitmap get(Key key) {
+    return cache.get(key);
+  }
+
+  /**
+   * Caches an atlas. A copy of the key is stored, so the caller can keep reusing it for lookups.
+   * @param key
+   * @param atlas
+   */
+  static void put(Key key, Bitmap atlas) {
+    cache.put(new Key(key), atlas);
+  }
+
+  /**
+   * Identifies an atlas by every value that affects its pixels.
+   * Instances are mutable so they can be reused for lookups without allocating.
+   */
+  static final class Key {
+    private float starSize;
+    private float starsSeparation;
+    private int numberOfStars;
+    private float stepSize;
+    private float borderWidth;
+    private float cornerRadius;
+    private boolean drawBorderEnabled;
+    private SimpleRatingBar.Gravity gravity;
+    private @ColorInt int borderColor;
+    private @ColorInt int fillColor;
+    private @ColorInt int starBackgroundColor;
+    // whether the atlas has pressed state cells, which indicator bars can't show
+    private boolean pressedState;
+    private @ColorInt int pressedBorderColor;
+    private @ColorInt int pressedFillColor;
+    private @ColorInt int pressedStarBackgroundColor;
+    // subpixel position of the stars, which changes antialiasing
+    private float offsetX;
+    private float offsetY;
+
+    Key() {
+    }
+
+    private Key(Key other) {
+      starSize = other.starSize;
+      starsSeparation = other.starsSeparation;
+      numberOfStars = other.numberOfStars;
+      stepSize = other.stepSize;
+      borderWidth = other.borderWidth;
+      cornerRadius = other.cornerRadius;
+      drawBorderEnabled = other.drawBorderEnabled;
+      gravity = other.gravity;
+      borderColor = other.borderColor;
+      fillColor = other.fillColor;
+      starBackgroundColor = other.starBackgroundColor;
+      pressedState = other.pressedState;
+      pressedBorderColor = other.pressedBorderColor;
+      pressedFillColor = other.pressedFillColor;
+      pressedStarBackgroundColor = other.pressedStarBackgroundColor;
+      offsetX = other.offsetX;
+      offsetY = other.offsetY;
+    }
+
+    /**
+     * Sets the key to the current style of the bar.
+     * @param bar
+     * @param offsetX fractional part of the horizontal position of the stars
+     * @param offsetY fractional part of the vertical position of the stars
+     */
+    void set(SimpleRatingBar bar, float offsetX, float offsetY) {
+      starSize = bar.getStarSize();
+      starsSeparation = bar.getStarsSeparation();
+      numberOfStars = bar.getNumberOfStars();
+      stepSize = bar.getStepSize();
+      borderWidth = bar.getStarBorderWidth();
+      cornerRadius = bar.getStarCornerRadius();
+      drawBorderEnabled = bar.isDrawBorderEnabled();
+      gravity = bar.getGravity();
+      borderColor = bar.getBorderColor();
+      fillColor = bar.getFillColor();
+      starBackgroundColor = bar.getStarBackgroundColor();
+      pressedState = !bar.isIndicator();
+      // pressed colors don't affect atlases without pressed state, so they can be shared regardless of them
+      pressedBorderColor = pressedState ? bar.getPressedBorderColor() : 0;
+      pressedFillColor = pressedState ? bar.getPressedFillColor() : 0;
+      pressedStarBackgroundColor = pressedState ? bar.getPressedStarBackgroundColor() : 0;
+      this.offsetX = offsetX;
+      this.offsetY = offsetY;
+    }
+
+    @Override public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Key)) return false;
+      Key key = (Key) o;
+      return Float.compare(key.starSize, starSize) == 0
+          && Float.compare(key.starsSeparation, starsSeparation) == 0
+          && numberOfStars == key.numberOfStars
+          && Float.compare(key.stepSize, stepSize) == 0
+          && Float.compare(key.borderWidth, borderWidth) == 0
+          && Float.compare(key.cornerRadius, cornerRadius) == 0
+          && drawBorderEnabled == key.drawBorderEnabled
+          && gravity == key.gravity
+          && borderColor == key.borderColor
+          && fillColor == key.fillColor
+          && starBackgroundColor == key.starBackgroundColor
+          && pressedState == key.pressedState
+          && pressedBorderColor == key.pressedBorderColor
+          && pressedFillColor == key.pressedFillColor
+          && pressedStarBackgroundColor == key.pressedStarBackgroundColor
+          && Float.compare(key.offsetX, offsetX) == 0
+          && Float.compare(key.offsetY, offsetY) == 0;
+    }
+
+    @Override public int hashCode() {
+      int result = Float.floatToIntBits(starSize);
+      result = 31 * result + Float.floatToIntBits(starsSeparation);
+      result = 31 * result + numberOfStars;
+      result = 31 * result + Float.floatToIntBits(stepSize);
+      result = 31 * result + Float.floatToIntBits(borderWidth);
+      result = 31 * result + Float.floatToIntBits(cornerRadius);
+      result = 31 * result + (drawBorderEnabled ? 1 : 0);
+      result = 31 * result + (gravity != null ? gravity.ordinal() : 0);
+      result = 31 * result + borderColor;
+      result = 31 * result + fillColor;
+      result = 31 * result + starBackgroundColor;
+      result = 31 * result + (pressedState ? 1 : 0);
+      result = 31 * result + pressedBorderColor;
+      result = 31 * result + pressedFillColor;
+      result = 31 * result + pressedStarBackgroundColor;
+      result = 31 * result + Float.floatToIntBits(offsetX);
+      result = 31 * result + Float.floatToIntBits(offsetY);
+      return result;
+    }
+  }
+}
@@ -0,0 +1,152 @@
+package com.iarcuschin.simpleratingbar;
+
+import android.graphics.Bitmap;
+import android.support.annotation.ColorInt;
+import android.support.v4.util.LruCache;
+
+/**
+ * Process-wide LRU cache of pre-rendered star glyphs, shared by all SimpleRatingBar instances.
+ * A glyph is a bitmap of a single star (either full or empty), so bars with identical style
+ * end up drawing the same bitmaps instead of rasterizing the star path for each star on each frame.
+ * The cache is bounded by a byte budget, which can be changed using {@link #setMaxSize(int)}.
+ */
+public final class StarGlyphCache {
+
+  private static final int DEFAULT_MAX_SIZE = 4 * 1024 * 1024;
+
+  private static final LruCache<Key, Bitmap> cache = new LruCache<Key, Bitmap>(DEFAULT_MAX_SIZE) {
+    @Override protected int sizeOf(Key key, Bitmap glyph) {
+      return glyph.getByteCount();
+    }
+  };
+
+  private StarGlyphCache() {
+  }
+
+  /**
+   * Sets the maximum amount of bytes the cached glyphs can occupy.
+   * Least recently used glyphs will be evicted if the new budget is exceeded.
+   * @param maxSize in bytes, must be greater than 0
+   */
+  public static void setMaxSize(int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException(String.format("StarGlyphCache initialized with invalid value for maxSize. Found %d, but should be greater than 0", maxSize));
+    }
+    cache.resize(maxSize);
+  }
+
+  /**
+   * Returns the maximum amount of bytes the cached glyphs can occupy.
+   * @return
+   */
+  public static int getMaxSize() {
+    return cache.maxSize();
+  }
+
+  /**
+   * Returns the amount of bytes occupied by the cached glyphs.
+   * @return
+   */
+  public static int getSize() {
+    return cache.size();
+  }
+
+  /**
+   * Evicts all cached glyphs.
+   */
+  public static void clear() {
+    cache.evictAll();
+  }
+
+  /**
+   * Evicts least recently used glyphs until the cache occupies no more than the given size.
+   * @param size in bytes
+   */
+  static void trimToSize(int size) {
+    cache.trimToSize(size);
+  }
+
+  /**
+   * Returns the glyph associated to the key, or null if it's not cached.
+   * @param key
+   * @return
+   */
+  static Bitmap get(Key key) {
+    return cache.get(key);
+  }
+
+  /**
+   * Caches a glyph. A copy of the key is stored, so the caller can keep reusing it for lookups.
+   * @param key
+   * @param glyph
+   */
+  static void put(Key key, Bitmap glyph) {
+    cache.put(new Key(key), glyph);
+  }
+
+  /**
+   * Identifies a glyph by every value that affects its pixels.
+   * Instances are mutable so they can be reused for lookups without allocating.
+   */
+  static final class Key {
+    private float starSize;
+    private float borderWidth;
+    private float cornerRadius;
+    private boolean drawBorderEnabled;
+    private @ColorInt int borderColor;
+    private @ColorInt int fillColor;
+    private @ColorInt int starBackgroundColor;
+    private float density;
+    private boolean filled;
+
+    Key() {
+    }
+
+    private Key(Key other) {
+      set(other.starSize, other.borderWidth, other.cornerRadius, other.drawBorderEnabled, other.borderColor,
+          other.fillColor, other.starBackgroundColor, other.density, other.filled);
+    }
+
+    void set(float starSize, float borderWidth, float cornerRadius, boolean drawBorderEnabled,
+             @ColorInt int borderColor, @ColorInt int fillColor, @ColorInt int starBackgroundColor,
+             float density, boolean filled) {
+      this.starSize = starSize;
+      this.borderWidth = borderWidth;
+      this.cornerRadius = cornerRadius;
+      this.drawBorderEnabled = drawBorderEnabled;
+      this.borderColor = borderColor;
+      this.fillColor = fillColor;
+      this.starBackgroundColor = starBackgroundColor;
+      this.density = density;
+      this.filled = filled;
+    }
+
+    @Override public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Key)) return false;
+      Key key = (Key) o;
+      return Float.compare(key.starSize, starSize) == 0
+          && Float.compare(key.borderWidth, borderWidth) == 0
+          && Float.compare(key.cornerRadius, cornerRadius) == 0
+          && drawBorderEnabled == key.drawBorderEnabled
+          && borderColor == key.borderColor
+          && fillColor == key.fillColor
+          && starBackgroundColor == key.starBackgroundColor
+          && Float.compare(key.density, density) == 0
+          && filled == key.filled;
+    }
+
+    @Override public int hashCode() {
+      int result = Float.floatToIntBits(starSize);
+      result = 31 * result + Float.floatToIntBits(borderWidth);
+      result = 31 * result + Float.floatToIntBits(cornerRadius);
+      result = 31 * result + (drawBorderEnabled ? 1 : 0);
+      result = 31 * result + borderColor;
+      result = 31 * result + fillColor;
+      result = 31 * result + starBackgroundColor;
+      result = 31 * result + Float.floatToIntBits(density);
+      result = 31 * result + (filled ? 1 : 0);
+      return result;
+    }
+  }
+}
@@ -0,0 +1,138 @@
+package com.iarcuschin.simpleratingbar;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.support.annotation.ColorInt;
+
+/**
+ * Geometry and drawing of stars shared by {@link SimpleRatingBar}, its renderers and {@link SimpleRatingDrawable}.
+ */
+final class StarShape {
+
+  // a star has 5 tips and 5 inner vertices, each with x and y
+  static final int VERTEX_ARRAY_SIZE = 20;
+
+  private StarShape() {
+  }
+
+  /**
+   * Builds the outline of a star at (0, 0), baking rounded corners into it.
+   * Each corner is replaced by a quadratic curve between the points at cornerRadius (or half the side,
+   * if shorter) from the vertex, which is what CornerPathEffect would do on each draw.
+   * @param path where the outline is stored, it's rewound first
+   * @param vertex array of {@link #VERTEX_ARRAY_SIZE} floats, where the vertices of the star are stored
+   * @param starSize
+   * @param cornerRadius
+   */
+  static void buildStarPath(Path path, float[] vertex, float starSize, float cornerRadius) {
+    float bottomFromMargin = starSize * 0.2f;
+    float triangleSide = starSize * 0.35f;
+    float half = starSize * 0.5f;
+    float tipVerticalMargin = starSize * 0.05f;
+    float tipHorizontalMargin = starSize * 0.03f;
+    float innerUpHorizontalMargin = starSize * 0.38f;
+    float innerBottomHorizontalMargin = starSize * 0.32f;
+    float innerBottomVerticalMargin = starSize * 0.6f;
+    float innerCenterVerticalMargin = starSize * 0.27f;
+
+    setVertex(vertex, 0, tipHorizontalMargin, innerUpHorizontalMargin); // top left
+    setVertex(vertex, 1, tipHorizontalMargin + triangleSide, innerUpHorizontalMargin);
+    setVertex(vertex, 2, half, tipVerticalMargin); // top tip
+    setVertex(vertex, 3, starSize - tipHorizontalMargin - triangleSide, innerUpHorizontalMargin);
+    setVertex(vertex, 4, starSize - tipHorizontalMargin, innerUpHorizontalMargin); // top right
+    setVertex(vertex, 5, starSize - innerBottomHorizontalMargin, innerBottomVerticalMargin);
+    setVertex(vertex, 6, starSize - bottomFromMargin, starSize - tipVerticalMargin); // bottom right
+    setVertex(vertex, 7, half, starSize - innerCenterVerticalMargin);
+    setVertex(vertex, 8, bottomFromMargin, starSize - tipVerticalMargin); // bottom left
+    setVertex(vertex, 9, innerBottomHorizontalMargin, innerBottomVerticalMargin);
+
+    path.rewind();
+    int vertexCount = vertex.length / 2;
+    for (int i = 0; i < vertexCount; i++) {
+      float x = vertex[i * 2];
+      float y = vertex[i * 2 + 1];
+      int previous = (i + vertexCount - 1) % vertexCount;
+      int next = (i + 1) % vertexCount;
+      float startFactor = calculateCornerFactor(cornerRadius, x, y, vertex[previous * 2], vertex[previous * 2 + 1]);
+      float endFactor = calculateCornerFactor(cornerRadius, x, y, vertex[next * 2], vertex[next * 2 + 1]);
+      float startX = x + (vertex[previous * 2] - x) * startFactor;
+      float startY = y + (vertex[previous * 2 + 1] - y) * startFactor;
+      if (i == 0) {
+        path.moveTo(startX, startY);
+      } else {
+        path.lineTo(startX, startY);
+      }
+      if (cornerRadius > 0) {
+        path.quadTo(x, y, x + (vertex[next * 2] - x) * endFactor, y + (vertex[next * 2 + 1] - y) * endFactor);
+      }
+    }
+    path.close();
+  }
+
+  /**
+   * Creates the paint used by {@link #fillStars(Canvas, Path, Paint, int, int)}.
+   * @return
+   */
+  static Paint createFillPaint() {
+    Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.DITHER_FLAG);
+    paint.setStyle(Paint.Style.FILL_AND_STROKE);
+    paint.setStrokeJoin(Paint.Join.ROUND);
+    paint.setStrokeCap(Paint.Cap.ROUND);
+    return paint;
+  }
+
+  /**
+   * Fills the stars with the given color, without xfermodes, so it can be done straight into any canvas.
+   * Translucent colors are drawn on black, as the SRC_ATOP xfermode does on the outline of the stars,
+   * and transparent colors leave the stars transparent, as the CLEAR xfermode does.
+   * @param canvas
+   * @param starsPath
+   * @param paint
+   * @param color
+   * @param alpha opacity of the whole drawing, between 0 and 255
+   */
+  static void fillStars(Canvas canvas, Path starsPath, Paint paint, @ColorInt int color, int alpha) {
+    if (color == Color.TRANSPARENT || alpha == 0) {
+      return;
+    }
+    if (Color.alpha(color) != 0xFF) {
+      // SRC_ATOP keeps the black of the outline below translucent colors
+      paint.setColor(Color.argb(alpha, 0, 0, 0));
+      canvas.drawPath(starsPath, paint);
+    }
+    paint.setColor(modulateAlpha(color, alpha));
+    canvas.drawPath(starsPath, paint);
+  }
+
+  /**
+   * Returns the color with its alpha multiplied by the given one.
+   * @param color
+   * @param alpha between 0 and 255
+   * @return
+   */
+  static @ColorInt int modulateAlpha(@ColorInt int color, int alpha) {
+    if (alpha == 0xFF) {
+      return color;
+    }
+    return (color & 0x00FFFFFF) | ((Color.alpha(color) * alpha / 0xFF) << 24);
+  }
+
+  private static void setVertex(float[] vertex, int index, float x, float y) {
+    vertex[index * 2] = x;
+    vertex[index * 2 + 1] = y;
+  }
+
+  /**
+   * Calculates which fraction of the side from (x, y) to (toX, toY) is taken by the rounded corner at (x, y).
+   * @return
+   */
+  private static float calculateCornerFactor(float cornerRadius, float x, float y, float toX, float toY) {
+    float distance = (float) Math.hypot(toX - x, toY - y);
+    if (distance <= cornerRadius * 2) {
+      return 0.5f;
+    }
+    return cornerRadius / distance;
+  }
+}
@@ -0,0 +1,186 @@
+package com.iarcuschin.simpleratingbar;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapShader;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.graphics.Shader;
+
+/**
+ * Renderer of {@link SimpleRatingBar.RenderMode#Tiled}: a full star and an empty star are drawn once into tiles
+ * as wide as a star plus the separation, which are repeated along the bar by bitmap shaders.
+ * Each draw is a rect with the full tile up to the rating position and a rect with the empty tile after it,
+ * so its cost doesn't depend on numberOfStars.
+ * If the separation is too narrow to hold the border of the stars, tiles would cut it, so stars are drawn
+ * by a {@link SoftwareRenderer} instead.
+ */
+class TiledRenderer implements RatingBarRenderer {
+
+  private final SimpleRatingBar bar;
+  private final SoftwareRenderer fallback;
+  private boolean fallbackPrepared;
+  // whether tiles can't hold the stars with current style
+  private boolean useFallback;
+
+  private Bitmap tileFull;
+  private Bitmap tileEmpty;
+  private final Canvas tileCanvas = new Canvas();
+  private final Paint paintTileFull = new Paint(Paint.FILTER_BITMAP_FLAG | Paint.DITHER_FLAG);
+  private final Paint paintTileEmpty = new Paint(Paint.FILTER_BITMAP_FLAG | Paint.DITHER_FLAG);
+  private BitmapShader shaderFull;
+  private BitmapShader shaderEmpty;
+  // maps the tiles to view coordinates, scaling them to the exact (non integer) distance between stars
+  private final Matrix shaderMatrix = new Matrix();
+  // vertical position of the tiles, in view coordinates
+  private float tileTop;
+  // when dirty the tiles have to be drawn again
+  private boolean tilesDirty = true;
+  private boolean renderedTouchInProgress;
+  private final RectF starsBounds = new RectF();
+
+  TiledRenderer(SimpleRatingBar bar) {
+    this.bar = bar;
+    fallback = new SoftwareRenderer(bar);
+  }
+
+  @Override public void prepare() {
+    // stars geometry might have changed
+    tilesDirty = true;
+
+    RectF starsDrawingSpace = bar.getStarsDrawingSpace();
+    if (starsDrawingSpace == null) {
+      // not laid out yet
+      release();
+      return;
+    }
+
+    float period = bar.getStarSize() + bar.getStarsSeparation();
+    int margin = bar.getBorderMargin();
+    int tileWidth = Math.max(1, Math.round(period));
+    int tileHeight = (int) Math.ceil(bar.getStarSize()) + 2 * margin;
+    if (tileFull == null || tileFull.getWidth() != tileWidth || tileFull.getHeight() != tileHeight) {
+      releaseTiles();
+      tileFull = BitmapPool.obtain(tileWidth, tileHeight, Bitmap.Config.ARGB_8888);
+      tileEmpty = BitmapPool.obtain(tileWidth, tileHeight, Bitmap.Config.ARGB_8888);
+      shaderFull = new BitmapShader(tileFull, Shader.TileMode.REPEAT, Shader.TileMode.CLAMP);
+      shaderEmpty = new BitmapShader(tileEmpty, Shader.TileMode.REPEAT, Shader.TileMode.CLAMP);
+      paintTileFull.setShader(shaderFull);
+      paintTileEmpty.setShader(shaderEmpty);
+    }
+
+    // tiles start in the middle of the separation before the first star
+    tileTop = (float) Math.floor(starsDrawingSpace.top) - margin;
+    shaderMatrix.setScale(period / tileWidth, 1);
+    shaderMatrix.postTranslate(starsDrawingSpace.left - bar.getStarsSeparation() / 2, tileTop);
+    shaderFull.setLocalMatrix(shaderMatrix);
+    shaderEmpty.setLocalMatrix(shaderMatrix);
+
+    if (fallbackPrepared) {
+      fallback.prepare();
+    }
+  }
+
+  @Override public void invalidateStars() {
+    tilesDirty = true;
+    fallback.invalidateStars();
+  }
+
+  @Override public void draw(Canvas canvas) {
+    RectF starsDrawingSpace = bar.getStarsDrawingSpace();
+    if (starsDrawingSpace == null || tileFull == null) {
+      // not laid out yet
+      return;
+    }
+    if (tilesDirty) {
+      useFallback = !fitsInTile();
+    }
+    if (useFallback) {
+      if (!fallbackPrepared) {
+        fallback.prepare();
+        fallbackPrepared = true;
+      }
+      fallback.draw(canvas);
+      return;
+    }
+    if (fallbackPrepared) {
+      // let other bars use the internal bitmap while tiles are enough
+      fallback.release();
+      fallbackPrepared = false;
+    }
+
+    if (tilesDirty || bar.isTouchInProgress() != renderedTouchInProgress) {
+      drawTile(tileFull, 1f);
+      drawTile(tileEmpty, 0f);
+      tilesDirty = false;
+      renderedTouchInProgress = bar.isTouchInProgress();
+    }
+
+    float fillPosition = bar.calculateFillPosition();
+    float halfSeparation = bar.getStarsSeparation() / 2;
+    float left = starsDrawingSpace.left - halfSeparation;
+    float right = starsDrawingSpace.right + halfSeparation;
+    float bottom = tileTop + tileFull.getHeight();
+    if (bar.getGravity() == SimpleRatingBar.Gravity.Left) {
+      canvas.drawRect(left, tileTop, fillPosition, bottom, paintTileFull);
+      canvas.drawRect(fillPosition, tileTop, right, bottom, paintTileEmpty);
+    } else {
+      canvas.drawRect(left, tileTop, fillPosition, bottom, paintTileEmpty);
+      canvas.drawRect(fillPosition, tileTop, right, bottom, paintTileFull);
+    }
+  }
+
+  @Override public void release() {
+    releaseTiles();
+    fallback.release();
+    fallbackPrepared = false;
+    tilesDirty = true;
+  }
+
+  /**
+   * Returns whether a star, with its border and antialiasing, fits in a tile.
+   * @return
+   */
+  private boolean fitsInTile() {
+    // space between the star path and the edge of the star, at its widest point
+    bar.getStarsPath().computeBounds(starsBounds, true);
+    float inset = starsBounds.left - bar.getStarsDrawingSpace().left;
+    float overflow = (bar.isDrawBorderEnabled() ? bar.getStarBorderWidth() / 2 : 0) + 1 - inset;
+    return overflow <= bar.getStarsSeparation() / 2;
+  }
+
+  /**
+   * Draws a single star into the tile, scaled so the tile width matches the distance between stars.
+   * Paints of the bar must have their colors already set up.
+   * @param tile
+   * @param filled 1 for the full star, 0 for the empty one
+   */
+  private void drawTile(Bitmap tile, float filled) {
+    tile.eraseColor(Color.TRANSPARENT);
+    tileCanvas.setBitmap(tile);
+    tileCanvas.save();
+    tileCanvas.scale(tile.getWidth() / (bar.getStarSize() + bar.getStarsSeparation()), 1);
+    bar.drawStar(tileCanvas, bar.getStarsSeparation() / 2, bar.getStarsDrawingSpace().top - tileTop,
+        filled, SimpleRatingBar.Gravity.Left);
+    tileCanvas.restore();
+    tileCanvas.setBitmap(null);
+  }
+
+  /**
+   * Returns the tiles to the pool.
+   */
+  private void releaseTiles() {
+    if (tileFull != null) {
+      paintTileFull.setShader(null);
+      paintTileEmpty.setShader(null);
+      shaderFull = null;
+      shaderEmpty = null;
+      BitmapPool.release(tileFull);
+      BitmapPool.release(tileEmpty);
+      tileFull = null;
+      tileEmpty = null;
+    }
+  }
+}
@@ -0,0 +1,243 @@
+package com.iarcuschin.simpleratingbar;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Picture;
+import android.graphics.PorterDuff;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View.MeasureSpec;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Checks that drawing, touch handling and layout don't allocate in steady state, by counting the bytes the
+ * test thread allocates while running them (HotSpot keeps a per thread counter, unlike ART).
+ * Each hot path runs a few times before being measured, so objects created on first use (renderer buffers,
+ * glyphs, atlases, etc) and class loading don't count.
+ * Renderers rasterize into internal canvases, which Robolectric records draw calls in, so draws are measured
+ * into a canvas that ignores them, and rating changes are only drawn with renderers that draw the rating
+ * straight into the view canvas.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class AllocationFreeTest {
+
+  private static final int WARM_UP_RUNS = 20;
+  private static final int MEASURED_RUNS = 100;
+  // small enough for the atlas of the default style to fit in StarAtlasCache
+  private static final int WIDTH = 200;
+  private static final int HEIGHT = 40;
+
+  private com.sun.management.ThreadMXBean threads;
+  private SimpleRatingBar bar;
+  private final Canvas canvas = new DiscardingCanvas();
+
+  @Before
+  public void setUp() {
+    java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+    threads = (com.sun.management.ThreadMXBean) threadMXBean;
+    assumeTrue(threads.isThreadAllocatedMemorySupported());
+    threads.setThreadAllocatedMemoryEnabled(true);
+
+    bar = new SimpleRatingBar(RuntimeEnvironment.application);
+    bar.measure(MeasureSpec.makeMeasureSpec(WIDTH, MeasureSpec.EXACTLY),
+        MeasureSpec.makeMeasureSpec(HEIGHT, MeasureSpec.EXACTLY));
+    bar.layout(0, 0, WIDTH, HEIGHT);
+  }
+
+  @After
+  public void tearDown() {
+    StarAtlasCache.clear();
+    StarGlyphCache.clear();
+    BitmapPool.clear();
+  }
+
+  @Test
+  public void drawDoesNotAllocate() {
+    bar.setRating(2.5f);
+    for (SimpleRatingBar.RenderMode renderMode : SimpleRatingBar.RenderMode.values()) {
+      bar.setRenderMode(renderMode);
+      assertNoAllocations("onDraw with " + renderMode, new Runnable() {
+        @Override public void run() {
+          bar.onDraw(canvas);
+        }
+      });
+    }
+  }
+
+  @Test
+  public void drawWhileRatingChangesDoesNotAllocate() {
+    final float[] ratings = {1.5f, 3.7f};
+    for (SimpleRatingBar.RenderMode renderMode : SimpleRatingBar.RenderMode.values()) {
+      if (renderMode == SimpleRatingBar.RenderMode.Software) {
+        // re-rasterizes the changed stars into its internal canvas
+        continue;
+      }
+      bar.setRenderMode(renderMode);
+      assertNoAllocations("onDraw of rating changes with " + renderMode, new Runnable() {
+        private int run;
+
+        @Override public void run() {
+          bar.setRating(ratings[run++ % ratings.length], false);
+          bar.onDraw(canvas);
+        }
+      });
+    }
+  }
+
+  @Test
+  public void touchDoesNotAllocate() {
+    long downTime = SystemClock.uptimeMillis();
+    final MotionEvent[] moves = {
+        MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_MOVE, WIDTH * 0.3f, HEIGHT / 2, 0),
+        MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_MOVE, WIDTH * 0.7f, HEIGHT / 2, 0)
+    };
+    MotionEvent down = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, WIDTH * 0.5f, HEIGHT / 2, 0);
+    bar.onTouchEvent(down);
+    down.recycle();
+
+    assertNoAllocations("onTouchEvent", new Runnable() {
+      private int run;
+
+      @Override public void run() {
+        bar.onTouchEvent(moves[run++ % moves.length]);
+      }
+    });
+    for (MotionEvent move : moves) {
+      move.recycle();
+    }
+  }
+
+  @Test
+  public void layoutDoesNotAllocate() {
+    final int[] widths = {WIDTH, WIDTH + 50};
+    assertNoAllocations("onLayout", new Runnable() {
+      private int run;
+
+      @Override public void run() {
+        bar.layout(0, 0, widths[run++ % widths.length], HEIGHT);
+      }
+    });
+  }
+
+  /**
+   * Runs the hot path, and fails if it allocates on each run once warmed up.
+   * One-off allocations smaller than a byte per run are tolerated, no object is that small.
+   * @param hotPath name of the hot path, for the failure message
+   * @param run
+   */
+  private void assertNoAllocations(String hotPath, Runnable run) {
+    for (int i = 0; i < WARM_UP_RUNS; i++) {
+      run.run();
+    }
+    long threadId = Thread.currentThread().getId();
+    // reading the counter may allocate itself, always the same amount
+    long start = threads.getThreadAllocatedBytes(threadId);
+    long counterOverhead = threads.getThreadAllocatedBytes(threadId) - start;
+
+    long before = threads.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < MEASURED_RUNS; i++) {
+      run.run();
+    }
+    long allocated = threads.getThreadAllocatedBytes(threadId) - before - counterOverhead;
+    assertTrue(String.format("%s allocated %d bytes in %d runs", hotPath, allocated, MEASURED_RUNS),
+        allocated < MEASURED_RUNS);
+  }
+
+  /**
+   * View canvas that discards draw calls, so only the allocations of the bar are counted.
+   */
+  private static class DiscardingCanvas extends Canvas {
+
+    @Override public boolean isHardwareAccelerated() {
+      // lets Atlas render mode draw hardware atlases
+      return true;
+    }
+
+    @Override public int save() {
+      return 1;
+    }
+
+    @Override public void restore() {
+    }
+
+    @Override public void restoreToCount(int saveCount) {
+    }
+
+    @Override public void translate(float dx, float dy) {
+    }
+
+    @Override public void scale(float sx, float sy) {
+    }
+
+    @Override public boolean clipRect(float left, float top, float right, float bottom) {
+      return true;
+    }
+
+    @Override public boolean clipRect(int left, int top, int right, int bottom) {
+      return true;
+    }
+
+    @Override public boolean clipRect(Rect rect) {
+      return true;
+    }
+
+    @Override public boolean clipRect(RectF rect) {
+      return true;
+    }
+
+    @Override public boolean clipPath(Path path) {
+      return true;
+    }
+
+    @Override public void drawColor(int color) {
+    }
+
+    @Override public void drawColor(int color, PorterDuff.Mode mode) {
+    }
+
+    @Override public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+    }
+
+    @Override public void drawBitmap(Bitmap bitmap, Rect src, Rect dst, Paint paint) {
+    }
+
+    @Override public void drawBitmap(Bitmap bitmap, Rect src, RectF dst, Paint paint) {
+    }
+
+    @Override public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+    }
+
+    @Override public void drawRect(RectF rect, Paint paint) {
+    }
+
+    @Override public void drawRect(Rect rect, Paint paint) {
+    }
+
+    @Override public void drawPath(Path path, Paint paint) {
+    }
+
+    @Override public void drawPicture(Picture picture) {
+    }
+
+    @Override public void drawPicture(Picture picture, RectF dst) {
+    }
+  }
+}
@@ -0,0 +1,175 @@
+package com.iarcuschin.simpleratingbar;
+
+import android.app.Activity;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.util.AttributeSet;
+import android.view.View.MeasureSpec;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that bars can be constructed off the main thread, as AsyncLayoutInflater and SimpleRatingBarPool do,
+ * and then attached, laid out and drawn on the main thread.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class BackgroundConstructionTest {
+
+  private static final int BAR_COUNT = 50;
+  private static final int THREAD_COUNT = 4;
+  private static final long TIMEOUT_SECONDS = 10;
+
+  private Context context;
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    context = RuntimeEnvironment.application;
+    executor = Executors.newFixedThreadPool(THREAD_COUNT);
+    // bars must race on a cold cache, not on attributes resolved by a previous test
+    RatingBarAttrsCache.clear();
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void barsInflatedInBackgroundShareTheirStyle() throws Exception {
+    // attribute sets are not thread safe, so each bar gets its own, as each inflation does
+    final List<AttributeSet> attributeSets = new ArrayList<>();
+    for (int i = 0; i < BAR_COUNT; i++) {
+      attributeSets.add(Robolectric.buildAttributeSet()
+          .addAttribute(R.attr.srb_numberOfStars, "7")
+          .addAttribute(R.attr.srb_rating, "3.5")
+          .addAttribute(R.attr.srb_fillColor, "#ff0000")
+          .build());
+    }
+
+    // all bars are inflated at once, so they race on the attributes cache and the intern table of styles
+    final CountDownLatch start = new CountDownLatch(1);
+    List<Future<SimpleRatingBar>> futures = new ArrayList<>();
+    for (final AttributeSet attrs : attributeSets) {
+      futures.add(executor.submit(new Callable<SimpleRatingBar>() {
+        @Override public SimpleRatingBar call() throws Exception {
+          start.await();
+          return new SimpleRatingBar(context, attrs);
+        }
+      }));
+    }
+    start.countDown();
+    List<SimpleRatingBar> bars = getAll(futures);
+
+    RatingBarStyle style = bars.get(0).getStyle();
+    for (SimpleRatingBar bar : bars) {
+      assertSame(style, bar.getStyle());
+      assertEquals(7, bar.getNumberOfStars());
+      assertEquals(Color.RED, bar.getFillColor());
+      assertEquals(3.5f, bar.getRating(), 0f);
+    }
+    attachAndDraw(bars);
+  }
+
+  @Test
+  public void stylesBuiltConcurrentlyAreInterned() throws Exception {
+    final int[] fillColors = {Color.RED, Color.GREEN, Color.BLUE};
+    final CountDownLatch start = new CountDownLatch(1);
+    List<Future<RatingBarStyle>> futures = new ArrayList<>();
+    for (int i = 0; i < BAR_COUNT; i++) {
+      final int fillColor = fillColors[i % fillColors.length];
+      futures.add(executor.submit(new Callable<RatingBarStyle>() {
+        @Override public RatingBarStyle call() throws Exception {
+          start.await();
+          return new RatingBarStyle.Builder(context).setFillColor(fillColor).build();
+        }
+      }));
+    }
+    start.countDown();
+    List<RatingBarStyle> styles = getAll(futures);
+
+    for (int i = 0; i < styles.size(); i++) {
+      assertSame(styles.get(i % fillColors.length), styles.get(i));
+      assertEquals(fillColors[i % fillColors.length], styles.get(i).getFillColor());
+    }
+  }
+
+  @Test
+  public void poolPrewarmsBarsInBackground() throws Exception {
+    RatingBarStyle style = new RatingBarStyle.Builder(context).setNumberOfStars(3).build();
+    SimpleRatingBarPool pool = new SimpleRatingBarPool(context, style);
+    pool.prewarm(BAR_COUNT, executor);
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    assertEquals(BAR_COUNT, pool.size());
+
+    List<SimpleRatingBar> bars = new ArrayList<>();
+    for (int i = 0; i < BAR_COUNT; i++) {
+      SimpleRatingBar bar = pool.obtain();
+      assertSame(style, bar.getStyle());
+      bars.add(bar);
+    }
+    assertEquals(0, pool.size());
+    // an empty pool creates bars on the calling thread
+    assertNotNull(pool.obtain());
+    attachAndDraw(bars);
+  }
+
+  /**
+   * Attaches the bars to an activity, then lays them out and draws them on the main thread.
+   * @param bars
+   */
+  private static void attachAndDraw(List<SimpleRatingBar> bars) {
+    Activity activity = Robolectric.setupActivity(Activity.class);
+    LinearLayout container = new LinearLayout(activity);
+    container.setOrientation(LinearLayout.VERTICAL);
+    for (SimpleRatingBar bar : bars) {
+      container.addView(bar, new LinearLayout.LayoutParams(
+          ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+    }
+    activity.setContentView(container);
+
+    container.measure(MeasureSpec.makeMeasureSpec(1080, MeasureSpec.EXACTLY),
+        MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED));
+    container.layout(0, 0, container.getMeasuredWidth(), container.getMeasuredHeight());
+    for (SimpleRatingBar bar : bars) {
+      assertTrue(bar.getWidth() > 0 && bar.getHeight() > 0);
+      Bitmap bitmap = Bitmap.createBitmap(bar.getWidth(), bar.getHeight(), Bitmap.Config.ARGB_8888);
+      bar.draw(new Canvas(bitmap));
+    }
+  }
+
+  private static <T> List<T> getAll(List<Future<T>> futures) throws Exception {
+    List<T> results = new ArrayList<>();
+    for (Future<T> future : futures) {
+      results.add(future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+    return results;
+  }
+}